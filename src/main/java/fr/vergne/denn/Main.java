@@ -9,13 +9,18 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 import java.util.stream.IntStream;
 
 import fr.vergne.denn.agent.Agent;
+import fr.vergne.denn.agent.BlockRand;
+import fr.vergne.denn.agent.MoveFields;
+import fr.vergne.denn.agent.NetworksCache;
 import fr.vergne.denn.agent.Neural.Builder;
 import fr.vergne.denn.agent.NeuralNetwork;
 import fr.vergne.denn.agent.adn.Mutator;
@@ -29,6 +34,9 @@ import fr.vergne.denn.window.Button;
 import fr.vergne.denn.window.Window;
 
 public class Main {
+	private static final long MOVE_FIELDS_BUDGET = 16 * 1024 * 1024;// MEDIUM: 1000 agents on 10k cells fit
+	private static final long NETWORKS_CACHE_BUDGET = 16 * 1024 * 1024;
+
 	@SuppressWarnings("unused")
 	record Profile(int terrainSize, int agentsLimit) {
 		private final static Profile SMALL = new Profile(20, 100);
@@ -39,27 +47,34 @@ public class Main {
 	public static void main(String[] args) {
 		Profile profile = Profile.SMALL;
 
-		Random random = new Random(0);
+		// Each agent and phase draws from its own stream, independent from the others
+		SplittableRandom random = new SplittableRandom(0);
 
 		Terrain terrain = Terrain.createWithSize(profile.terrainSize, profile.terrainSize);
 
-		Supplier<Builder<NeuralNetwork>> networkBuilderGenerator = () -> new NeuralNetwork.Builder(random::nextDouble);
-		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(networkBuilderGenerator, random);
+		// Seeds drawn in turn by the factory, or beforehand for agents created in parallel
+		LongFunction<Builder<NeuralNetwork>> networkBuilderGenerator = seed -> new NeuralNetwork.Builder(
+				new BlockRand(seed));
+		MoveFields moveFields = new MoveFields(terrain.width(), terrain.height(), MOVE_FIELDS_BUDGET, true);
+		NetworksCache networksCache = new NetworksCache(NETWORKS_CACHE_BUDGET);
+		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(networkBuilderGenerator, random.split(),
+				moveFields, networksCache);
 		Function<Program, Agent> agentGenerator = program -> Agent.createFromProgram(networkFactory, program);
 		Program.Factory programFactory = new Program.Factory();
 		initializeAgents(terrain, programFactory, agentGenerator);
 
 		// TODO Manage selection criteria in the settings
-		Condition.OnPosition selectionCriterion = new Condition.OnPosition.Factory(terrain, random)
+		Condition.OnPosition selectionCriterion = new Condition.OnPosition.Factory(terrain, random.split())
 				.surviveUntil(terrain.width() / 10)//
 				.dieFrom(terrain.width() * 2 / 10)//
 				.fromCenter();
-		Reproducer reproducer = Reproducer.onRandomCodes(random);
-		Mutator mutator = Mutator.onWeights(random, 0.001);
+		// Each child reproduces and mutates with its own stream, so children can be built in parallel
+		Function<RandomGenerator, Reproducer> reproducers = Reproducer::onRandomCodes;
+		Function<RandomGenerator, Mutator> mutators = childRandom -> Mutator.onWeights(childRandom, 0.001);
 
 		Map<Position, Double> survivalRates = estimateSuccessRates(terrain, selectionCriterion);
 		List<List<Button>> buttons = createButtons(random, terrain, networkFactory, programFactory, profile.agentsLimit,
-				selectionCriterion, survivalRates, reproducer, mutator);
+				selectionCriterion, survivalRates, reproducers, mutators);
 		AgentColorizer agentColorizer = AgentColorizer.pickingOnAttractors(terrain, networkFactory)
 		// .cacheByAgent(new WeakHashMap<>())//
 		;
@@ -83,10 +98,10 @@ public class Main {
 		});
 	}
 
-	private static List<List<Button>> createButtons(Random random, Terrain terrain,
+	private static List<List<Button>> createButtons(SplittableRandom random, Terrain terrain,
 			NeuralNetwork.Factory networkFactory, Program.Factory programFactory, int agentsLimit,
-			Condition.OnPosition selectionCriterion, Map<Position, Double> survivalRates, Reproducer reproducer,
-			Mutator mutator) {
+			Condition.OnPosition selectionCriterion, Map<Position, Double> survivalRates,
+			Function<RandomGenerator, Reproducer> reproducers, Function<RandomGenerator, Mutator> mutators) {
 		Button.Action logPopulation = () -> {
 			int remaining = terrain.agentsCount();
 			int percent = 100 * remaining / agentsLimit;
@@ -115,9 +130,10 @@ public class Main {
 		Button.Action wait = Button.Action.wait(Duration.of(1, SECONDS));
 
 		Button.Action move = moveAgents().on(terrain);
-		Button.Action reproduce = reproduceAgents(networkFactory, reproducer, mutator, agentsLimit, random).on(terrain);
+		Button.Action reproduce = reproduceAgentsInParallel(networkFactory, reproducers, mutators, agentsLimit,
+				random.split()).on(terrain);
 		Button.Action fill = fillAgents(networkFactory, pos -> programFactory.positionMover(pos)).on(terrain);
-		Button.Action dispatch = dispatchAgentRandomly(random).on(terrain);
+		Button.Action dispatch = dispatchAgentRandomly(random.split()).on(terrain);
 		Button.Action select = keepAgents(selectionCriterion).on(terrain).then(terrain::optimize).then(logPopulation)
 				.then(logSurvivalCoverage).then(logSurvivalSuccess);
 		int terrainSize = max(terrain.width(), terrain.height());
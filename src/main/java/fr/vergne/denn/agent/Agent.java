@@ -2,6 +2,9 @@ package fr.vergne.denn.agent;
 
 import static java.util.Objects.*;
 
+import java.util.Optional;
+import java.util.function.Function;
+
 import fr.vergne.denn.agent.NeuralNetwork.AgentNetwork;
 import fr.vergne.denn.agent.adn.Chromosome;
 import fr.vergne.denn.agent.adn.Program;
@@ -10,17 +13,40 @@ import fr.vergne.denn.utils.Position;
 public class Agent {
 
 	private final Chromosome chromosome;
+	private final NeuralNetwork neuralNetwork;
 	private final AgentNetwork network;
 
-	private Agent(Chromosome chromosome, NeuralNetwork neuralNetwork) {
+	private Agent(Chromosome chromosome, NeuralNetwork neuralNetwork, Optional<MoveFields> moveFields) {
 		this.chromosome = requireNonNull(chromosome, "No chromosome provided");
-		this.network = requireNonNull(neuralNetwork.forAgent(), "No neural network provided");
+		this.neuralNetwork = requireNonNull(neuralNetwork, "No neural network provided");
+		this.network = moveFields//
+				.filter(fields -> isDeterministic())//
+				.map(fields -> fields.forAgent(neuralNetwork, chromosome))//
+				.orElseGet(neuralNetwork::forAgent);
 	}
 
 	public static Agent createFromChromosome(NeuralNetwork.Factory networkFactory, Chromosome chromosome) {
-		byte[] bytes = chromosome.bytes();
-		Program program = Program.deserialize(bytes);
-		return new Agent(chromosome, networkFactory.execute(program));
+		return new Agent(chromosome, networkFactory.execute(chromosome), networkFactory.moveFields());
+	}
+
+	/**
+	 * Same as {@link #createFromChromosome(NeuralNetwork.Factory, Chromosome)},
+	 * but with the seed of its network drawn beforehand, so agents can be created
+	 * in parallel.
+	 */
+	public static Agent createFromChromosome(NeuralNetwork.Factory networkFactory, Chromosome chromosome, long seed) {
+		return new Agent(chromosome, networkFactory.execute(chromosome, seed), networkFactory.moveFields());
+	}
+
+	/**
+	 * Same as {@link #createFromChromosome(NeuralNetwork.Factory, Chromosome)},
+	 * but with the network seed reserved now with
+	 * {@link NeuralNetwork.Factory#reserve()}, so agents can be created in
+	 * parallel with the networks they would have in turn.
+	 */
+	public static Function<Chromosome, Agent> reserveFromChromosome(NeuralNetwork.Factory networkFactory) {
+		Function<Chromosome, NeuralNetwork> networkBuilder = networkFactory.reserve();
+		return chromosome -> new Agent(chromosome, networkBuilder.apply(chromosome), networkFactory.moveFields());
 	}
 
 	public static Agent createFromProgram(NeuralNetwork.Factory networkFactory, Program program) {
@@ -34,8 +60,40 @@ public class Agent {
 		return position.move(move);
 	}
 
+	/**
+	 * Primitive version of {@link #decideNextPosition(Position)}, which does not
+	 * allocate anything on its own. Use
+	 * {@link fr.vergne.denn.terrain.Terrain#moveAgent(Agent, byte)} to
+	 * apply the move.
+	 * 
+	 * @param x the current X coordinate of the agent
+	 * @param y the current Y coordinate of the agent
+	 * @return the code of the move, as provided by {@link Position.Move#code()}
+	 */
+	public byte decideNextMove(int x, int y) {
+		network.setPosition(x, y);
+		network.fire();
+		return network.getMoveCode();
+	}
+
+	/**
+	 * @return <code>true</code> if the decisions of this agent only depend on its
+	 *         position, so deciding does not change its future decisions
+	 */
+	public boolean isDeterministic() {
+		return neuralNetwork instanceof StructuredNetwork network && network.structure().isDeterministic;
+	}
+
+	boolean decidesOnMoveField() {
+		return network instanceof MoveFields.CachedNetwork;
+	}
+
 	public Chromosome chromosome() {
 		return chromosome;
 	}
 
+	NeuralNetwork neuralNetwork() {
+		return neuralNetwork;
+	}
+
 }
@@ -0,0 +1,115 @@
+package fr.vergne.denn.agent;
+
+/**
+ * Lane-wise operations used by {@link CompiledNetwork#fireBatch} to fire a
+ * neuron over all the samples of a batch. The signals of a neuron are stored
+ * contiguously, so each operation combines the range of a neuron with the
+ * range of one of its inputs, within the same array.
+ * <p>
+ * The {@link #DEFAULT} kernel relies on the SIMD instructions of the Vector API
+ * when the <code>jdk.incubator.vector</code> module is available (run with
+ * <code>--add-modules jdk.incubator.vector</code>), and on scalar loops
+ * otherwise. Both compute the same values.
+ */
+interface BatchKernel {
+
+	static final BatchKernel SCALAR = new Scalar();
+	static final BatchKernel DEFAULT = detect();
+
+	/**
+	 * signals[targetStart + i] += signals[sourceStart + i]
+	 */
+	void add(double[] signals, int targetStart, int sourceStart, int count);
+
+	/**
+	 * signals[targetStart + i] *= factor
+	 */
+	void multiply(double[] signals, int targetStart, double factor, int count);
+
+	/**
+	 * signals[targetStart + i] *= factors[factorsStart + i]
+	 */
+	void multiply(double[] signals, int targetStart, double[] factors, int factorsStart, int count);
+
+	/**
+	 * signals[targetStart + i] += signals[sourceStart + i] * factors[factorsStart +
+	 * i], without fused multiply-add, so rounded like separate operations
+	 */
+	void addProduct(double[] signals, int targetStart, int sourceStart, double[] factors, int factorsStart,
+			int count);
+
+	/**
+	 * signals[targetStart + i] = min(signals[targetStart + i], signals[sourceStart
+	 * + i])
+	 */
+	void min(double[] signals, int targetStart, int sourceStart, int count);
+
+	/**
+	 * signals[targetStart + i] = max(signals[targetStart + i], signals[sourceStart
+	 * + i])
+	 */
+	void max(double[] signals, int targetStart, int sourceStart, int count);
+
+	private static BatchKernel detect() {
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+			return SCALAR;
+		}
+		try {
+			// Only loaded once we know the module is there
+			return VectorBatchKernel.create().orElse(SCALAR);
+		} catch (LinkageError error) {
+			return SCALAR;
+		}
+	}
+
+	static class Scalar implements BatchKernel {
+
+		@Override
+		public void add(double[] signals, int targetStart, int sourceStart, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] += signals[sourceStart + i];
+			}
+		}
+
+		@Override
+		public void multiply(double[] signals, int targetStart, double factor, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] *= factor;
+			}
+		}
+
+		@Override
+		public void multiply(double[] signals, int targetStart, double[] factors, int factorsStart, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] *= factors[factorsStart + i];
+			}
+		}
+
+		@Override
+		public void addProduct(double[] signals, int targetStart, int sourceStart, double[] factors,
+				int factorsStart, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] += signals[sourceStart + i] * factors[factorsStart + i];
+			}
+		}
+
+		@Override
+		public void min(double[] signals, int targetStart, int sourceStart, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] = Math.min(signals[targetStart + i], signals[sourceStart + i]);
+			}
+		}
+
+		@Override
+		public void max(double[] signals, int targetStart, int sourceStart, int count) {
+			for (int i = 0; i < count; i++) {
+				signals[targetStart + i] = Math.max(signals[targetStart + i], signals[sourceStart + i]);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "Scalar";
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package fr.vergne.denn.agent;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+
+/**
+ * {@link Rand} generating its numbers ahead of time, by blocks of uniform
+ * doubles in [0;1). Random neurons then only read the next number of the block,
+ * the generator running once per block in a tight loop. Numbers are generated
+ * with the xoshiro256++ algorithm, which is fast and has no shared state.
+ * <p>
+ * It is not thread-safe, so each agent or worker should have its own, seeded
+ * for instance from a {@link java.util.SplittableRandom}. The numbers generated
+ * only depend on the seed, not on the size of the blocks.
+ */
+public class BlockRand implements Rand {
+
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	private final double[] block;
+	private int index;
+	private long s0;
+	private long s1;
+	private long s2;
+	private long s3;
+
+	public BlockRand(long seed) {
+		this(seed, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param seed      the seed of the generator, expanded with SplitMix64 as
+	 *                  recommended by the xoshiro authors
+	 * @param blockSize the number of doubles generated at once
+	 */
+	public BlockRand(long seed, int blockSize) {
+		this(splitMix64(seed, 1), splitMix64(seed, 2), splitMix64(seed, 3), splitMix64(seed, 4), blockSize);
+	}
+
+	BlockRand(long s0, long s1, long s2, long s3, int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be at least 1, currently " + blockSize);
+		}
+		if ((s0 | s1 | s2 | s3) == 0) {
+			throw new IllegalArgumentException("State cannot be only zeros");
+		}
+		this.s0 = s0;
+		this.s1 = s1;
+		this.s2 = s2;
+		this.s3 = s3;
+		this.block = new double[blockSize];
+		this.index = blockSize;// Filled on first use
+	}
+
+	private static long splitMix64(long seed, int step) {
+		long z = seed + step * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public double next() {
+		if (index == block.length) {
+			fill();
+		}
+		return block[index++];
+	}
+
+	private void fill() {
+		long s0 = this.s0;
+		long s1 = this.s1;
+		long s2 = this.s2;
+		long s3 = this.s3;
+		double[] block = this.block;
+		for (int i = 0; i < block.length; i++) {
+			long result = Long.rotateLeft(s0 + s3, 23) + s0;
+			long t = s1 << 17;
+			s2 ^= s0;
+			s3 ^= s1;
+			s1 ^= s2;
+			s0 ^= s3;
+			s2 ^= t;
+			s3 = Long.rotateLeft(s3, 45);
+			block[i] = (result >>> 11) * 0x1.0p-53;
+		}
+		this.s0 = s0;
+		this.s1 = s1;
+		this.s2 = s2;
+		this.s3 = s3;
+		index = 0;
+	}
+}
@@ -0,0 +1,503 @@
+package fr.vergne.denn.agent;
+
+import static java.lang.invoke.MethodType.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+
+/**
+ * {@link NeuralNetwork} generated as a dedicated class at runtime. Each
+ * {@link Structure} is turned into a hidden class holding one
+ * <code>double</code> field per neuron and a straight-line {@link #fire()}
+ * method, so the JIT can keep the signals in registers and inline the neuron
+ * functions.
+ * <p>
+ * Hidden classes are not strongly linked to their class loader, so a generated
+ * class is unloaded once its instance is not used anymore. Structures using
+ * neurons which are not built-in cannot be generated, so they are instantiated
+ * as a usual {@link CompiledNetwork}.
+ */
+public abstract class BytecodeNetwork implements StructuredNetwork {
+
+	double x = 0;
+	double y = 0;
+	final Rand[] externals;
+	private Structure structure;
+
+	protected BytecodeNetwork(Rand[] externals) {
+		this.externals = externals;
+	}
+
+	@Override
+	public Structure structure() {
+		return structure;
+	}
+
+	/**
+	 * Replace the signals of the neurons, for instance to continue the work of
+	 * another network with the same {@link Structure}.
+	 */
+	abstract void loadSignals(double[] signals);
+
+	@Override
+	public void setXSignal(double x) {
+		this.x = x;
+	}
+
+	@Override
+	public void setYSignal(double y) {
+		this.y = y;
+	}
+
+	@Override
+	public void fireBatch(double[] xs, double[] ys, double[] dxOut, double[] dyOut, int count) {
+		for (int i = 0; i < count; i++) {
+			x = xs[i];
+			y = ys[i];
+			fire();
+			dxOut[i] = dXSignal();
+			dyOut[i] = dYSignal();
+		}
+	}
+
+	static NeuralNetwork generate(Structure structure) {
+		if (!isGenerable(structure)) {
+			return structure.instantiate();
+		}
+
+		byte[] classBytes;
+		try {
+			classBytes = new ClassGenerator(structure).generate();
+		} catch (ClassTooLargeException cause) {
+			return structure.instantiate();
+		}
+
+		Rand[] externals = new Rand[structure.size()];
+		for (int neuronIndex = 0; neuronIndex < structure.size(); neuronIndex++) {
+			externals[neuronIndex] = (Rand) structure.externals[neuronIndex];
+		}
+
+		try {
+			Lookup lookup = MethodHandles.lookup().defineHiddenClass(classBytes, true);
+			MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(),
+					methodType(void.class, Rand[].class));
+			BytecodeNetwork network = (BytecodeNetwork) constructor.invoke(externals);
+			network.structure = structure;
+			return network;
+		} catch (Throwable cause) {
+			throw new IllegalStateException("Cannot instantiate generated network", cause);
+		}
+	}
+
+	private static boolean isGenerable(Structure structure) {
+		for (byte operation : structure.operations) {
+			if (operation == Structure.FUNCTION || operation == Structure.NEURON) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings("serial")
+	private static class ClassTooLargeException extends RuntimeException {
+	}
+
+	private static class ClassGenerator {
+		private static final int MAX_SIZE = 0xFFFF;
+
+		private static final int ACC_PUBLIC = 0x0001;
+		private static final int ACC_PRIVATE = 0x0002;
+		private static final int ACC_FINAL = 0x0010;
+		private static final int ACC_SUPER = 0x0020;
+
+		private static final int ICONST_0 = 0x03;
+		private static final int DCONST_0 = 0x0e;
+		private static final int DCONST_1 = 0x0f;
+		private static final int BIPUSH = 0x10;
+		private static final int SIPUSH = 0x11;
+		private static final int LDC_W = 0x13;
+		private static final int LDC2_W = 0x14;
+		private static final int ALOAD_0 = 0x2a;
+		private static final int ALOAD_1 = 0x2b;
+		private static final int DALOAD = 0x31;
+		private static final int AALOAD = 0x32;
+		private static final int DADD = 0x63;
+		private static final int DMUL = 0x6b;
+		private static final int DRETURN = 0xaf;
+		private static final int RETURN = 0xb1;
+		private static final int GETFIELD = 0xb4;
+		private static final int PUTFIELD = 0xb5;
+		private static final int INVOKESPECIAL = 0xb7;
+		private static final int INVOKESTATIC = 0xb8;
+		private static final int INVOKEINTERFACE = 0xb9;
+
+		private static final String THIS_CLASS = BytecodeNetwork.class.getPackageName().replace('.', '/')
+				+ "/GeneratedNetwork";
+		private static final String SUPER_CLASS = BytecodeNetwork.class.getName().replace('.', '/');
+		private static final String RAND_CLASS = Rand.class.getName().replace('.', '/');
+		private static final String RAND_ARRAY = Rand[].class.descriptorString();
+
+		private final Structure structure;
+		private final ConstantPool pool = new ConstantPool();
+
+		ClassGenerator(Structure structure) {
+			this.structure = structure;
+		}
+
+		byte[] generate() {
+			int thisClass = pool.classRef(THIS_CLASS);
+			int superClass = pool.classRef(SUPER_CLASS);
+			byte[] constructor = method(ACC_PUBLIC, "<init>", "(" + RAND_ARRAY + ")V", 2, 2, constructorCode());
+			byte[] fire = method(ACC_PUBLIC, "fire", "()V", 7, 1, fireCode());
+			byte[] dXSignal = method(ACC_PUBLIC, "dXSignal", "()D", 2, 1, signalCode(structure.dXIndex));
+			byte[] dYSignal = method(ACC_PUBLIC, "dYSignal", "()D", 2, 1, signalCode(structure.dYIndex));
+			byte[] loadSignals = method(0, "loadSignals", "([D)V", 4, 2, loadSignalsCode());
+			int[] fieldNames = new int[structure.size()];
+			for (int neuronIndex = 0; neuronIndex < structure.size(); neuronIndex++) {
+				fieldNames[neuronIndex] = pool.utf8(fieldName(neuronIndex));
+			}
+			int fieldType = pool.utf8("D");
+			if (pool.count > MAX_SIZE) {
+				throw new ClassTooLargeException();
+			}
+
+			return write(out -> {
+				out.writeInt(0xCAFEBABE);
+				out.writeShort(0);// Minor version
+				out.writeShort(61);// Java 17
+				out.writeShort(pool.count);
+				pool.bytes.writeTo(out);
+				out.writeShort(ACC_FINAL | ACC_SUPER);
+				out.writeShort(thisClass);
+				out.writeShort(superClass);
+				out.writeShort(0);// Interfaces inherited from the super class
+				out.writeShort(structure.size());
+				for (int fieldName : fieldNames) {
+					out.writeShort(ACC_PRIVATE);
+					out.writeShort(fieldName);
+					out.writeShort(fieldType);
+					out.writeShort(0);// No attribute
+				}
+				out.writeShort(5);
+				out.write(constructor);
+				out.write(fire);
+				out.write(dXSignal);
+				out.write(dYSignal);
+				out.write(loadSignals);
+				out.writeShort(0);// No attribute
+			});
+		}
+
+		private byte[] constructorCode() {
+			return write(code -> {
+				code.writeByte(ALOAD_0);
+				code.writeByte(ALOAD_1);
+				code.writeByte(INVOKESPECIAL);
+				code.writeShort(pool.methodRef(SUPER_CLASS, "<init>", "(" + RAND_ARRAY + ")V"));
+				code.writeByte(RETURN);
+			});
+		}
+
+		private byte[] signalCode(int neuronIndex) {
+			return write(code -> {
+				code.writeByte(ALOAD_0);
+				getField(code, neuronIndex);
+				code.writeByte(DRETURN);
+			});
+		}
+
+		private byte[] loadSignalsCode() {
+			return write(code -> {
+				for (int neuronIndex = 0; neuronIndex < structure.size(); neuronIndex++) {
+					code.writeByte(ALOAD_0);
+					code.writeByte(ALOAD_1);
+					pushInt(code, neuronIndex);
+					code.writeByte(DALOAD);
+					putField(code, neuronIndex);
+				}
+				code.writeByte(RETURN);
+			});
+		}
+
+		private byte[] fireCode() {
+			return write(code -> {
+				code.writeByte(ALOAD_0);
+				code.writeByte(ALOAD_0);
+				code.writeByte(GETFIELD);
+				code.writeShort(pool.fieldRef(SUPER_CLASS, "x", "D"));
+				putField(code, Structure.X_INDEX);
+
+				code.writeByte(ALOAD_0);
+				code.writeByte(ALOAD_0);
+				code.writeByte(GETFIELD);
+				code.writeShort(pool.fieldRef(SUPER_CLASS, "y", "D"));
+				putField(code, Structure.Y_INDEX);
+
+				for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < structure.size(); neuronIndex++) {
+					code.writeByte(ALOAD_0);
+					neuronCode(code, neuronIndex);
+					putField(code, neuronIndex);
+				}
+				code.writeByte(RETURN);
+			});
+		}
+
+		private void neuronCode(DataOutputStream code, int neuronIndex) throws IOException {
+			int from = structure.inputsStart[neuronIndex];
+			int to = structure.inputsStart[neuronIndex + 1];
+			switch (structure.operations[neuronIndex]) {
+			case Structure.CONSTANT:
+				pushDouble(code, structure.parameters[neuronIndex]);
+				break;
+			case Structure.SUM:
+				sumCode(code, from, to);
+				break;
+			case Structure.WEIGHTED_SUM:
+				sumCode(code, from, to);
+				pushDouble(code, structure.parameters[neuronIndex]);
+				code.writeByte(DMUL);
+				break;
+			case Structure.DOT:
+				code.writeByte(DCONST_0);
+				for (int i = from; i < to; i++) {
+					code.writeByte(ALOAD_0);
+					getField(code, structure.inputs[i]);
+					pushDouble(code, structure.inputParameters[i]);
+					code.writeByte(DMUL);
+					code.writeByte(DADD);
+				}
+				break;
+			case Structure.MIN:
+				reduceCode(code, from, to, pool.methodRef("java/lang/Math", "min", "(DD)D"));
+				break;
+			case Structure.MAX:
+				reduceCode(code, from, to, pool.methodRef("java/lang/Math", "max", "(DD)D"));
+				break;
+			case Structure.RANDOM:
+			case Structure.SUPPLIED:
+				code.writeByte(ALOAD_0);
+				code.writeByte(GETFIELD);
+				code.writeShort(pool.fieldRef(SUPER_CLASS, "externals", RAND_ARRAY));
+				pushInt(code, neuronIndex);
+				code.writeByte(AALOAD);
+				code.writeByte(INVOKEINTERFACE);
+				code.writeShort(pool.interfaceMethodRef(RAND_CLASS, "next", "()D"));
+				code.writeByte(1);// Arguments count, including the instance
+				code.writeByte(0);
+				break;
+			default:
+				throw new IllegalStateException("Cannot generate operation " + structure.operations[neuronIndex]);
+			}
+		}
+
+		private void sumCode(DataOutputStream code, int from, int to) throws IOException {
+			// Start from zero like the compiled network, to produce the same signals
+			code.writeByte(DCONST_0);
+			for (int i = from; i < to; i++) {
+				code.writeByte(ALOAD_0);
+				getField(code, structure.inputs[i]);
+				code.writeByte(DADD);
+			}
+		}
+
+		private void reduceCode(DataOutputStream code, int from, int to, int reducer) throws IOException {
+			if (from == to) {
+				code.writeByte(DCONST_0);
+				return;
+			}
+			code.writeByte(ALOAD_0);
+			getField(code, structure.inputs[from]);
+			for (int i = from + 1; i < to; i++) {
+				code.writeByte(ALOAD_0);
+				getField(code, structure.inputs[i]);
+				code.writeByte(INVOKESTATIC);
+				code.writeShort(reducer);
+			}
+		}
+
+		private void getField(DataOutputStream code, int neuronIndex) throws IOException {
+			code.writeByte(GETFIELD);
+			code.writeShort(pool.fieldRef(THIS_CLASS, fieldName(neuronIndex), "D"));
+		}
+
+		private void putField(DataOutputStream code, int neuronIndex) throws IOException {
+			code.writeByte(PUTFIELD);
+			code.writeShort(pool.fieldRef(THIS_CLASS, fieldName(neuronIndex), "D"));
+		}
+
+		private void pushDouble(DataOutputStream code, double value) throws IOException {
+			if (Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(0.0)) {
+				code.writeByte(DCONST_0);
+			} else if (value == 1.0) {
+				code.writeByte(DCONST_1);
+			} else {
+				code.writeByte(LDC2_W);
+				code.writeShort(pool.doubleConstant(value));
+			}
+		}
+
+		private void pushInt(DataOutputStream code, int value) throws IOException {
+			if (value <= 5) {
+				code.writeByte(ICONST_0 + value);
+			} else if (value <= Byte.MAX_VALUE) {
+				code.writeByte(BIPUSH);
+				code.writeByte(value);
+			} else if (value <= Short.MAX_VALUE) {
+				code.writeByte(SIPUSH);
+				code.writeShort(value);
+			} else {
+				code.writeByte(LDC_W);
+				code.writeShort(pool.integerConstant(value));
+			}
+		}
+
+		private static String fieldName(int neuronIndex) {
+			return "n" + neuronIndex;
+		}
+
+		private byte[] method(int access, String name, String descriptor, int maxStack, int maxLocals,
+				byte[] code) {
+			if (code.length >= MAX_SIZE) {
+				throw new ClassTooLargeException();
+			}
+			int nameIndex = pool.utf8(name);
+			int descriptorIndex = pool.utf8(descriptor);
+			int codeAttribute = pool.utf8("Code");
+			return write(out -> {
+				out.writeShort(access);
+				out.writeShort(nameIndex);
+				out.writeShort(descriptorIndex);
+				out.writeShort(1);// Code attribute only
+				out.writeShort(codeAttribute);
+				out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+				out.writeShort(maxStack);
+				out.writeShort(maxLocals);
+				out.writeInt(code.length);
+				out.write(code);
+				out.writeShort(0);// No exception
+				out.writeShort(0);// No attribute
+			});
+		}
+	}
+
+	private static class ConstantPool {
+		private static final int UTF8 = 1;
+		private static final int INTEGER = 3;
+		private static final int DOUBLE = 6;
+		private static final int CLASS = 7;
+		private static final int FIELD_REF = 9;
+		private static final int METHOD_REF = 10;
+		private static final int INTERFACE_METHOD_REF = 11;
+		private static final int NAME_AND_TYPE = 12;
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private final Map<String, Integer> indexes = new HashMap<>();
+		private int count = 1;// Index 0 is reserved
+
+		int utf8(String value) {
+			return entry("utf8:" + value, 1, out -> {
+				out.writeByte(UTF8);
+				out.writeUTF(value);
+			});
+		}
+
+		int integerConstant(int value) {
+			return entry("int:" + value, 1, out -> {
+				out.writeByte(INTEGER);
+				out.writeInt(value);
+			});
+		}
+
+		int doubleConstant(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			return entry("double:" + bits, 2, out -> {
+				out.writeByte(DOUBLE);
+				out.writeLong(bits);
+			});
+		}
+
+		int classRef(String internalName) {
+			int name = utf8(internalName);
+			return entry("class:" + internalName, 1, out -> {
+				out.writeByte(CLASS);
+				out.writeShort(name);
+			});
+		}
+
+		int fieldRef(String owner, String name, String descriptor) {
+			return memberRef(FIELD_REF, owner, name, descriptor);
+		}
+
+		int methodRef(String owner, String name, String descriptor) {
+			return memberRef(METHOD_REF, owner, name, descriptor);
+		}
+
+		int interfaceMethodRef(String owner, String name, String descriptor) {
+			return memberRef(INTERFACE_METHOD_REF, owner, name, descriptor);
+		}
+
+		private int memberRef(int tag, String owner, String name, String descriptor) {
+			int ownerClass = classRef(owner);
+			int nameAndType = nameAndType(name, descriptor);
+			return entry(tag + ":" + owner + "." + name + ":" + descriptor, 1, out -> {
+				out.writeByte(tag);
+				out.writeShort(ownerClass);
+				out.writeShort(nameAndType);
+			});
+		}
+
+		private int nameAndType(String name, String descriptor) {
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			return entry("nameAndType:" + name + ":" + descriptor, 1, out -> {
+				out.writeByte(NAME_AND_TYPE);
+				out.writeShort(nameIndex);
+				out.writeShort(descriptorIndex);
+			});
+		}
+
+		private int entry(String key, int slots, Writer writer) {
+			Integer index = indexes.get(key);
+			if (index == null) {
+				index = count;
+				run(() -> writer.write(out));
+				indexes.put(key, index);
+				count += slots;
+			}
+			return index;
+		}
+	}
+
+	private static interface Writer {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+	private static interface IORunnable {
+		void run() throws IOException;
+	}
+
+	private static void run(IORunnable runnable) {
+		try {
+			runnable.run();
+		} catch (IOException cause) {
+			throw new UncheckedIOException(cause);
+		}
+	}
+
+	private static byte[] write(Writer writer) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		run(() -> writer.write(new DataOutputStream(bytes)));
+		return bytes.toByteArray();
+	}
+}
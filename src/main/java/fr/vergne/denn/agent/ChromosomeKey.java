@@ -0,0 +1,18 @@
+package fr.vergne.denn.agent;
+
+import java.util.Arrays;
+
+/**
+ * Key of the caches indexed by chromosome, comparing the content of the bytes.
+ */
+record ChromosomeKey(byte[] bytes) {
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ChromosomeKey key && Arrays.equals(bytes, key.bytes);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(bytes);
+	}
+}
@@ -0,0 +1,626 @@
+package fr.vergne.denn.agent;
+
+import static java.lang.Math.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.DotProductFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.FixedSignal;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.MaxFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.MinFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.RandomSignal;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.SumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.SuppliedSignal;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.WeightedSumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.NeuralFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron.FunctionNeuron;
+import fr.vergne.denn.agent.DenseLayersFuser.Fusion;
+import fr.vergne.denn.agent.NeuronsOptimizer.Optimization;
+import fr.vergne.denn.agent.NeuronsPruner.Pruning;
+
+/**
+ * {@link NeuralNetwork} compiled into flat primitive arrays. The neurons are
+ * described by a {@link Structure}, which stores an operation code per neuron,
+ * the indexes of their inputs in a CSR-like table, and a parameter (weight or
+ * constant) per neuron. Firing the network is then a single loop over these
+ * arrays, without boxing nor intermediary objects.
+ * <p>
+ * Neurons follow the same ordering semantics than
+ * {@link NeuralNetwork.Builder.BuildStrategy#BASE}: they are fired in index
+ * order, so a neuron reading a later neuron reads its signal from the previous
+ * fire. Neurons which are not built-in are kept as is and fired through their
+ * own {@link Neuron} interface.
+ * <p>
+ * Sums and weighted sums are the only accepted difference: they add their
+ * inputs in order, while {@link NeuralNetwork.Builder.BuildStrategy#BASE} uses
+ * the compensated {@link java.util.stream.DoubleStream#sum()}. So their last
+ * bits may differ, like 0.6000000000000001 instead of 0.6 for 0.1 + 0.3 + 0.2.
+ */
+public class CompiledNetwork implements StructuredNetwork {
+
+	private final Structure structure;
+	private final double[] signals;
+	private final double[] functionInputs;
+	private double[] batchSignals = new double[0];
+	private double[] batchParameters = new double[0];
+	private double x = 0;
+	private double y = 0;
+
+	CompiledNetwork(Structure structure) {
+		this.structure = structure;
+		this.signals = new double[structure.size()];
+		this.functionInputs = new double[structure.inputs.length];
+	}
+
+	static Structure compile(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		return Structure.compile(neuronsDefinitions, dXIndex, dYIndex, 0);
+	}
+
+	static Structure compilePruned(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		Pruning pruning = NeuronsPruner.prune(neuronsDefinitions, dXIndex, dYIndex);
+		return Structure.compile(pruning.neuronsDefinitions(), pruning.dXIndex(), pruning.dYIndex(),
+				pruning.prunedNeuronsCount());
+	}
+
+	static Structure compileOptimized(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		Optimization optimization = NeuronsOptimizer.optimize(neuronsDefinitions, dXIndex, dYIndex);
+		return compilePruned(optimization.neuronsDefinitions(), optimization.dXIndex(), optimization.dYIndex());
+	}
+
+	static Structure compileDense(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		Optimization optimization = NeuronsOptimizer.optimize(neuronsDefinitions, dXIndex, dYIndex);
+		Fusion fusion = DenseLayersFuser.fuse(optimization.neuronsDefinitions());
+		return compilePruned(fusion.neuronsDefinitions(), optimization.dXIndex(), optimization.dYIndex());
+	}
+
+	public Structure structure() {
+		return structure;
+	}
+
+	double[] signals() {
+		return signals;
+	}
+
+	@Override
+	public void setXSignal(double x) {
+		this.x = x;
+	}
+
+	@Override
+	public void setYSignal(double y) {
+		this.y = y;
+	}
+
+	@Override
+	public void fire() {
+		Structure structure = this.structure;
+		double[] signals = this.signals;
+
+		signals[Structure.X_INDEX] = x;
+		signals[Structure.Y_INDEX] = y;
+		int size = structure.size();
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+			signals[neuronIndex] = fireNeuron(structure, neuronIndex, signals, functionInputs);
+		}
+	}
+
+	/**
+	 * @param structure      the structure of the network
+	 * @param neuronIndex    the neuron to fire
+	 * @param signals        the signals of all the neurons of the network
+	 * @param functionInputs a buffer as long as the structure inputs, to
+	 *                       compute non built-in functions
+	 * @return the new signal of the neuron
+	 */
+	static double fireNeuron(Structure structure, int neuronIndex, double[] signals, double[] functionInputs) {
+		int[] inputs = structure.inputs;
+		int from = structure.inputsStart[neuronIndex];
+		int to = structure.inputsStart[neuronIndex + 1];
+		double signal;
+		switch (structure.operations[neuronIndex]) {
+		case Structure.CONSTANT:
+			return structure.parameters[neuronIndex];
+		case Structure.SUM:
+			// In input order, not compensated unlike BASE
+			signal = 0;
+			for (int i = from; i < to; i++) {
+				signal += signals[inputs[i]];
+			}
+			return signal;
+		case Structure.WEIGHTED_SUM:
+			signal = 0;
+			for (int i = from; i < to; i++) {
+				signal += signals[inputs[i]];
+			}
+			return signal * structure.parameters[neuronIndex];
+		case Structure.DOT:
+			signal = 0;
+			for (int i = from; i < to; i++) {
+				signal += signals[inputs[i]] * structure.inputParameters[i];
+			}
+			return signal;
+		case Structure.MIN:
+			if (from == to) {
+				return 0;
+			}
+			signal = signals[inputs[from]];
+			for (int i = from + 1; i < to; i++) {
+				signal = min(signal, signals[inputs[i]]);
+			}
+			return signal;
+		case Structure.MAX:
+			if (from == to) {
+				return 0;
+			}
+			signal = signals[inputs[from]];
+			for (int i = from + 1; i < to; i++) {
+				signal = max(signal, signals[inputs[i]]);
+			}
+			return signal;
+		default:
+			return fireExternalNeuron(structure, neuronIndex, signals, functionInputs);
+		}
+	}
+
+	// Separated to keep fireNeuron small enough to be inlined
+	private static double fireExternalNeuron(Structure structure, int neuronIndex, double[] signals,
+			double[] functionInputs) {
+		int[] inputs = structure.inputs;
+		int from = structure.inputsStart[neuronIndex];
+		int to = structure.inputsStart[neuronIndex + 1];
+		switch (structure.operations[neuronIndex]) {
+		case Structure.RANDOM:
+		case Structure.SUPPLIED:
+			return ((Rand) structure.externals[neuronIndex]).next();
+		case Structure.FUNCTION:
+			for (int i = from; i < to; i++) {
+				functionInputs[i] = signals[inputs[i]];
+			}
+			return ((NeuralFunction) structure.externals[neuronIndex]).compute(functionInputs, from, to);
+		case Structure.NEURON:
+			Neuron neuron = (Neuron) structure.externals[neuronIndex];
+			neuron.fire(signals, inputs, from, to);
+			return neuron.signal();
+		default:
+			throw new IllegalStateException("Unknown operation " + structure.operations[neuronIndex]);
+		}
+	}
+
+	/**
+	 * When the {@link Structure} allows it, fire the samples neuron by neuron
+	 * rather than sample by sample, so each neuron runs a tight loop over
+	 * contiguous signals, vectorized by the {@link BatchKernel}. Otherwise, fire
+	 * each sample in turn.
+	 */
+	@Override
+	public void fireBatch(double[] xs, double[] ys, double[] dxOut, double[] dyOut, int count) {
+		if (!structure.isFeedForward || count < 2) {
+			StructuredNetwork.super.fireBatch(xs, ys, dxOut, dyOut, count);
+			return;
+		}
+
+		int size = structure.size();
+		if (batchSignals.length < size * count) {
+			batchSignals = new double[size * count];
+			batchParameters = new double[structure.laneParametersSize() * count];
+		}
+		double[] batch = batchSignals;
+
+		System.arraycopy(xs, 0, batch, Structure.X_INDEX * count, count);
+		System.arraycopy(ys, 0, batch, Structure.Y_INDEX * count, count);
+		for (int sample = 0; sample < count; sample++) {
+			structure.loadParameters(batchParameters, sample, count);
+		}
+		fireLanes(structure, batch, batchParameters, count);
+		System.arraycopy(batch, structure.dXIndex * count, dxOut, 0, count);
+		System.arraycopy(batch, structure.dYIndex * count, dyOut, 0, count);
+
+		// Same state as after firing the last sample
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			signals[neuronIndex] = batch[neuronIndex * count + count - 1];
+		}
+		x = xs[count - 1];
+		y = ys[count - 1];
+	}
+
+	/**
+	 * Fire a feed-forward {@link Structure} on several lanes at once, neuron by
+	 * neuron. Both arrays have one row per neuron and one column per lane. The
+	 * lanes may come from different networks, as long as they share the same
+	 * topology, since their parameters are taken from the lanes too.
+	 * 
+	 * @param topology   the {@link Structure} providing the topology to fire
+	 * @param signals    the signals of the neurons, with the X and Y rows filled
+	 * @param parameters the parameters of the neurons, as filled by
+	 *                   {@link Structure#loadParameters(double[], int, int)}
+	 * @param count      the number of lanes
+	 */
+	static void fireLanes(Structure topology, double[] signals, double[] parameters, int count) {
+		byte[] operations = topology.operations;
+		int[] inputsStart = topology.inputsStart;
+		int[] inputs = topology.inputs;
+		BatchKernel kernel = BatchKernel.DEFAULT;
+		int size = operations.length;
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+			int from = inputsStart[neuronIndex];
+			int to = inputsStart[neuronIndex + 1];
+			int start = neuronIndex * count;
+			switch (operations[neuronIndex]) {
+			case Structure.CONSTANT:
+			case Structure.RANDOM:
+			case Structure.SUPPLIED:
+				System.arraycopy(parameters, start, signals, start, count);
+				break;
+			case Structure.SUM:
+			case Structure.WEIGHTED_SUM:
+				Arrays.fill(signals, start, start + count, 0);
+				for (int i = from; i < to; i++) {
+					kernel.add(signals, start, inputs[i] * count, count);
+				}
+				if (operations[neuronIndex] == Structure.WEIGHTED_SUM) {
+					kernel.multiply(signals, start, parameters, start, count);
+				}
+				break;
+			case Structure.DOT:
+				Arrays.fill(signals, start, start + count, 0);
+				for (int i = from; i < to; i++) {
+					kernel.addProduct(signals, start, inputs[i] * count, parameters, (size + i) * count, count);
+				}
+				break;
+			case Structure.MIN:
+				if (from == to) {
+					Arrays.fill(signals, start, start + count, 0);
+				} else {
+					System.arraycopy(signals, inputs[from] * count, signals, start, count);
+					for (int i = from + 1; i < to; i++) {
+						kernel.min(signals, start, inputs[i] * count, count);
+					}
+				}
+				break;
+			case Structure.MAX:
+				if (from == to) {
+					Arrays.fill(signals, start, start + count, 0);
+				} else {
+					System.arraycopy(signals, inputs[from] * count, signals, start, count);
+					for (int i = from + 1; i < to; i++) {
+						kernel.max(signals, start, inputs[i] * count, count);
+					}
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unsupported operation on lanes " + operations[neuronIndex]);
+			}
+		}
+	}
+
+	@Override
+	public double dXSignal() {
+		return signals[structure.dXIndex];
+	}
+
+	@Override
+	public double dYSignal() {
+		return signals[structure.dYIndex];
+	}
+
+	/**
+	 * Immutable description of a {@link CompiledNetwork}. The same
+	 * {@link Structure} can be instantiated several times, each instance having
+	 * its own signals.
+	 */
+	public static class Structure {
+		static final int X_INDEX = 0;
+		static final int Y_INDEX = 1;
+		static final int INPUTS_COUNT = 2;
+
+		static final byte INPUT = 0;
+		static final byte CONSTANT = 1;
+		static final byte SUM = 2;
+		static final byte WEIGHTED_SUM = 3;
+		static final byte MIN = 4;
+		static final byte MAX = 5;
+		static final byte RANDOM = 6;
+		static final byte SUPPLIED = 7;
+		static final byte FUNCTION = 8;
+		static final byte NEURON = 9;
+		static final byte DOT = 10;
+
+		final byte[] operations;
+		final int[] inputsStart;
+		final int[] inputs;
+		final double[] parameters;
+		/**
+		 * A parameter per input, aligned with {@link #inputs}, for the operations
+		 * weighting each input. The weights of a neuron are contiguous, like a row of
+		 * a matrix.
+		 */
+		final double[] inputParameters;
+		final Object[] externals;
+		final int dXIndex;
+		final int dYIndex;
+		final int prunedNeuronsCount;
+		/**
+		 * Whether it only has built-in neurons reading earlier neurons, so a fire does
+		 * not depend on the previous ones. Several fires can then be computed neuron
+		 * by neuron with {@link CompiledNetwork#fireLanes}.
+		 */
+		final boolean isFeedForward;
+		/**
+		 * Whether it is {@link #isFeedForward} without random or supplied signals, so
+		 * its output only depends on its X and Y signals.
+		 */
+		final boolean isDeterministic;
+		private Topology topology;
+
+		Structure(byte[] operations, int[] inputsStart, int[] inputs, double[] parameters, double[] inputParameters,
+				Object[] externals, int dXIndex, int dYIndex, int prunedNeuronsCount) {
+			this.operations = operations;
+			this.inputsStart = inputsStart;
+			this.inputs = inputs;
+			this.parameters = parameters;
+			this.inputParameters = inputParameters;
+			this.externals = externals;
+			this.dXIndex = dXIndex;
+			this.dYIndex = dYIndex;
+			this.prunedNeuronsCount = prunedNeuronsCount;
+			this.isFeedForward = isFeedForward(operations, inputsStart, inputs);
+			this.isDeterministic = isFeedForward && isDeterministic(operations);
+		}
+
+		/**
+		 * Same operations and connections than the given {@link Structure}, with
+		 * other parameters.
+		 */
+		private Structure(Structure structure, double[] parameters, double[] inputParameters, Object[] externals) {
+			this.operations = structure.operations;
+			this.inputsStart = structure.inputsStart;
+			this.inputs = structure.inputs;
+			this.parameters = parameters;
+			this.inputParameters = inputParameters;
+			this.externals = externals;
+			this.dXIndex = structure.dXIndex;
+			this.dYIndex = structure.dYIndex;
+			this.prunedNeuronsCount = structure.prunedNeuronsCount;
+			this.isFeedForward = structure.isFeedForward;
+			this.isDeterministic = structure.isDeterministic;
+			this.topology = structure.topology;
+		}
+
+		private static boolean isDeterministic(byte[] operations) {
+			for (byte operation : operations) {
+				if (operation == RANDOM || operation == SUPPLIED) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean isFeedForward(byte[] operations, int[] inputsStart, int[] inputs) {
+			for (int neuronIndex = INPUTS_COUNT; neuronIndex < operations.length; neuronIndex++) {
+				if (operations[neuronIndex] == FUNCTION || operations[neuronIndex] == NEURON) {
+					return false;
+				}
+				for (int i = inputsStart[neuronIndex]; i < inputsStart[neuronIndex + 1]; i++) {
+					if (inputs[i] >= neuronIndex) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * @return the topology of this {@link Structure}, which ignores the constants,
+		 *         weights and random sources of its neurons
+		 */
+		public Topology topology() {
+			if (topology == null) {
+				topology = new Topology(this);
+			}
+			return topology;
+		}
+
+		/**
+		 * @return the number of parameters of a lane: one per neuron, followed by one
+		 *         per input
+		 */
+		int laneParametersSize() {
+			return operations.length + inputs.length;
+		}
+
+		/**
+		 * Fill the lane of this {@link Structure} with the constants and weights of
+		 * its neurons, and with a new signal from each of its random neurons. Random
+		 * sources are consumed in index order, like during a fire.
+		 */
+		void loadParameters(double[] laneParameters, int lane, int count) {
+			int size = operations.length;
+			for (int neuronIndex = INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+				switch (operations[neuronIndex]) {
+				case CONSTANT:
+				case WEIGHTED_SUM:
+					laneParameters[neuronIndex * count + lane] = parameters[neuronIndex];
+					break;
+				case DOT:
+					for (int i = inputsStart[neuronIndex]; i < inputsStart[neuronIndex + 1]; i++) {
+						laneParameters[(size + i) * count + lane] = inputParameters[i];
+					}
+					break;
+				case RANDOM:
+				case SUPPLIED:
+					laneParameters[neuronIndex * count + lane] = ((Rand) externals[neuronIndex]).next();
+					break;
+				}
+			}
+		}
+
+		public int size() {
+			return operations.length;
+		}
+
+		/**
+		 * @return the number of neurons removed because they have no impact on dX/dY
+		 */
+		public int prunedNeuronsCount() {
+			return prunedNeuronsCount;
+		}
+
+		public CompiledNetwork instantiate() {
+			return new CompiledNetwork(this);
+		}
+
+		/**
+		 * @return the same {@link Structure}, but with its random neurons drawing from
+		 *         the given source, so its instances do not share random signals
+		 */
+		Structure withRandom(Rand random) {
+			Object[] externals = this.externals.clone();
+			boolean isReplaced = false;
+			for (int neuronIndex = INPUTS_COUNT; neuronIndex < operations.length; neuronIndex++) {
+				if (operations[neuronIndex] == RANDOM) {
+					externals[neuronIndex] = random;
+					isReplaced = true;
+				}
+			}
+			return isReplaced ? new Structure(this, parameters, inputParameters, externals) : this;
+		}
+
+		/**
+		 * @return the same {@link Structure}, but with other constants and weights,
+		 *         indexed like {@link #parameters} and {@link #inputParameters}
+		 */
+		Structure withParameters(double[] parameters, double[] inputParameters) {
+			return new Structure(this, parameters, inputParameters, externals);
+		}
+
+		static Structure compile(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex,
+				int prunedNeuronsCount) {
+			NeuronDefinition[] definitions = neuronsDefinitions.toArray(NeuronDefinition[]::new);
+			int size = definitions.length;
+			byte[] operations = new byte[size];
+			int[] inputsStart = new int[size + 1];
+			double[] parameters = new double[size];
+			Object[] externals = new Object[size];
+
+			int inputsCount = 0;
+			for (int neuronIndex = INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+				inputsCount += definitions[neuronIndex].inputIndexes().size();
+			}
+			int[] inputs = new int[inputsCount];
+			double[] inputParameters = new double[inputsCount];
+
+			int inputPosition = 0;
+			for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+				inputsStart[neuronIndex] = inputPosition;
+				if (neuronIndex < INPUTS_COUNT) {
+					operations[neuronIndex] = INPUT;
+					continue;
+				}
+				NeuronDefinition definition = definitions[neuronIndex];
+				compileNeuron(definition.neuron(), neuronIndex, operations, parameters, externals);
+				List<Integer> inputIndexes = definition.inputIndexes();
+				if (operations[neuronIndex] == DOT) {
+					// Inputs without weight are ignored
+					double[] weights = ((DotProductFunction) ((FunctionNeuron) definition.neuron()).function())
+							.weights();
+					inputIndexes = inputIndexes.subList(0, Math.min(inputIndexes.size(), weights.length));
+					System.arraycopy(weights, 0, inputParameters, inputPosition, inputIndexes.size());
+				}
+				for (Integer inputIndex : inputIndexes) {
+					inputs[inputPosition++] = inputIndex;
+				}
+			}
+			inputsStart[size] = inputPosition;
+
+			return new Structure(operations, inputsStart, Arrays.copyOf(inputs, inputPosition), parameters,
+					Arrays.copyOf(inputParameters, inputPosition), externals, dXIndex, dYIndex, prunedNeuronsCount);
+		}
+
+		private static void compileNeuron(Neuron neuron, int neuronIndex, byte[] operations, double[] parameters,
+				Object[] externals) {
+			if (!(neuron instanceof FunctionNeuron functionNeuron)) {
+				operations[neuronIndex] = NEURON;
+				externals[neuronIndex] = neuron;
+				return;
+			}
+
+			NeuralFunction function = functionNeuron.function();
+			if (function instanceof FixedSignal fixedSignal) {
+				operations[neuronIndex] = CONSTANT;
+				parameters[neuronIndex] = fixedSignal.signal();
+			} else if (function instanceof SumFunction) {
+				operations[neuronIndex] = SUM;
+			} else if (function instanceof WeightedSumFunction weightedSum) {
+				operations[neuronIndex] = WEIGHTED_SUM;
+				parameters[neuronIndex] = weightedSum.weight();
+			} else if (function instanceof DotProductFunction) {
+				operations[neuronIndex] = DOT;
+			} else if (function instanceof MinFunction) {
+				operations[neuronIndex] = MIN;
+			} else if (function instanceof MaxFunction) {
+				operations[neuronIndex] = MAX;
+			} else if (function instanceof RandomSignal randomSignal) {
+				operations[neuronIndex] = RANDOM;
+				externals[neuronIndex] = randomSignal.random();
+			} else if (function instanceof SuppliedSignal suppliedSignal) {
+				Supplier<Double> signalSupplier = suppliedSignal.signalSupplier();
+				operations[neuronIndex] = SUPPLIED;
+				externals[neuronIndex] = (Rand) () -> signalSupplier.get();
+			} else {
+				operations[neuronIndex] = FUNCTION;
+				externals[neuronIndex] = function;
+			}
+		}
+
+		/**
+		 * Neurons operations and connections of a {@link Structure}. Networks with
+		 * the same {@link Topology} differ only by their constants, weights, and random
+		 * sources.
+		 */
+		public static final class Topology {
+			private final byte[] operations;
+			private final int[] inputsStart;
+			private final int[] inputs;
+			private final int dXIndex;
+			private final int dYIndex;
+			private final int hashCode;
+
+			private Topology(Structure structure) {
+				this.operations = structure.operations;
+				this.inputsStart = structure.inputsStart;
+				this.inputs = structure.inputs;
+				this.dXIndex = structure.dXIndex;
+				this.dYIndex = structure.dYIndex;
+				this.hashCode = Objects.hash(Arrays.hashCode(operations), Arrays.hashCode(inputsStart),
+						Arrays.hashCode(inputs), dXIndex, dYIndex);
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				if (obj == this) {
+					return true;
+				} else if (obj instanceof Topology that) {
+					return this.hashCode == that.hashCode//
+							&& this.dXIndex == that.dXIndex//
+							&& this.dYIndex == that.dYIndex//
+							&& Arrays.equals(this.operations, that.operations)//
+							&& Arrays.equals(this.inputsStart, that.inputsStart)//
+							&& Arrays.equals(this.inputs, that.inputs);
+				} else {
+					return false;
+				}
+			}
+
+			@Override
+			public int hashCode() {
+				return hashCode;
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package fr.vergne.denn.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.SumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.WeightedSumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.NeuralFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron.FunctionNeuron;
+
+/**
+ * Compile pass recognizing dense layers, like the ones of
+ * {@link LayeredNetwork.Programmer}, to be followed by {@link NeuronsPruner} to
+ * remove the neurons it makes useless. A dense layer uses a weighted sum per
+ * input and per output, each output summing its weighted inputs. Each output is
+ * replaced by a single dot product of the layer inputs, with the weights of its
+ * weighted sums, so the compiled network stores the weights of a layer as
+ * contiguous rows and fires them with a dot-product loop.
+ * <p>
+ * Only the weighted sums reading a single earlier neuron are fused into a later
+ * sum, since the sum then reads the same signal than the weighted sum. The
+ * other inputs of the sum are kept with a weight of 1. A dot product multiplies
+ * and adds in the same order, so it computes the same signal than the neurons
+ * it replaces. Weighted sums remain available to their other readers, if any.
+ */
+class DenseLayersFuser {
+
+	static record Fusion(List<NeuronDefinition> neuronsDefinitions, int fusedNeuronsCount) {
+	}
+
+	static Fusion fuse(List<NeuronDefinition> neuronsDefinitions) {
+		NeuronDefinition[] definitions = neuronsDefinitions.toArray(NeuronDefinition[]::new);
+		List<NeuronDefinition> fusedDefinitions = new ArrayList<>(definitions.length);
+		int fusedNeuronsCount = 0;
+		for (int neuronIndex = 0; neuronIndex < definitions.length; neuronIndex++) {
+			NeuronDefinition definition = definitions[neuronIndex];
+			if (neuronIndex < CompiledNetwork.Structure.INPUTS_COUNT
+					|| !(function(definition) instanceof SumFunction)) {
+				fusedDefinitions.add(definition);
+				continue;
+			}
+
+			List<Integer> inputIndexes = new ArrayList<>(definition.inputIndexes().size());
+			double[] weights = new double[definition.inputIndexes().size()];
+			boolean isLayer = false;
+			for (Integer inputIndex : definition.inputIndexes()) {
+				Integer layerInput = layerInput(definitions, inputIndex, neuronIndex);
+				if (layerInput == null) {
+					weights[inputIndexes.size()] = 1;
+					inputIndexes.add(inputIndex);
+				} else {
+					weights[inputIndexes.size()] = ((WeightedSumFunction) function(definitions[inputIndex])).weight();
+					inputIndexes.add(layerInput);
+					isLayer = true;
+				}
+			}
+
+			if (isLayer) {
+				Neuron dotProduct = Neuron.onInputsFunction(Builder.dotProductFunction(weights));
+				fusedDefinitions.add(new NeuronDefinition(dotProduct, inputIndexes));
+				fusedNeuronsCount++;
+			} else {
+				fusedDefinitions.add(definition);
+			}
+		}
+		return new Fusion(fusedDefinitions, fusedNeuronsCount);
+	}
+
+	/**
+	 * @return the single input of the weighted sum, or <code>null</code> if it
+	 *         cannot be fused in the reader
+	 */
+	private static Integer layerInput(NeuronDefinition[] definitions, int weightedIndex, int readerIndex) {
+		if (weightedIndex >= readerIndex || weightedIndex < CompiledNetwork.Structure.INPUTS_COUNT) {
+			return null;
+		}
+		NeuronDefinition weighted = definitions[weightedIndex];
+		if (!(function(weighted) instanceof WeightedSumFunction) || weighted.inputIndexes().size() != 1) {
+			return null;
+		}
+		int inputIndex = weighted.inputIndexes().get(0);
+		// Fired before the weighted sum, so the reader reads the same signal
+		return inputIndex < weightedIndex ? inputIndex : null;
+	}
+
+	private static NeuralFunction function(NeuronDefinition definition) {
+		return definition.neuron() instanceof FunctionNeuron functionNeuron ? functionNeuron.function() : null;
+	}
+}
@@ -0,0 +1,335 @@
+package fr.vergne.denn.agent;
+
+import static java.lang.Math.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.utils.Position.Bounds;
+
+/**
+ * {@link NeuralNetwork} evaluated in single precision: the constants, weights
+ * and signals of its {@link Structure} are stored as <code>float</code>, which
+ * halves the memory of the signals and doubles the lanes of a batch fired
+ * through SIMD instructions. Moves being rounded to unit moves, the lower
+ * precision rarely changes them, but it may when a signal is close enough to a
+ * rounding limit. Use {@link Divergence#measure(NeuralNetwork, Bounds)} to know
+ * whether it does for a given network.
+ * <p>
+ * Unlike the {@link NeuralNetwork.Builder.BuildStrategy} networks, it does not
+ * compute the same signals than the reference {@link CompiledNetwork}, so it is
+ * not a {@link StructuredNetwork}: networks sharing its topology would compute
+ * it back in double precision. Neurons which are not built-in still compute in
+ * double precision, on the rounded signals they read.
+ */
+public class FloatNetwork implements NeuralNetwork {
+
+	/**
+	 * Build {@link FloatNetwork}s from the same optimized {@link Structure}s than
+	 * {@link NeuralNetwork.Builder.BuildStrategy#DENSE}.
+	 */
+	public static final BuildDefinition BUILD_DEFINITION = (neuronsDefinitions, dXIndex, dYIndex) -> {
+		return new FloatNetwork(CompiledNetwork.compileDense(neuronsDefinitions, dXIndex, dYIndex));
+	};
+
+	private final Structure structure;
+	private final float[] parameters;
+	private final float[] inputParameters;
+	private final float[] signals;
+	private final double[] functionInputs;
+	private final double[] neuronSignals;
+	private float[] batchSignals = new float[0];
+	private double x = 0;
+	private double y = 0;
+
+	FloatNetwork(Structure structure) {
+		this.structure = structure;
+		this.parameters = toFloats(structure.parameters);
+		this.inputParameters = toFloats(structure.inputParameters);
+		this.signals = new float[structure.size()];
+		this.functionInputs = new double[structure.inputs.length];
+		this.neuronSignals = new double[structure.size()];
+	}
+
+	private static float[] toFloats(double[] values) {
+		float[] floats = new float[values.length];
+		for (int i = 0; i < values.length; i++) {
+			floats[i] = (float) values[i];
+		}
+		return floats;
+	}
+
+	@Override
+	public void setXSignal(double x) {
+		this.x = x;
+	}
+
+	@Override
+	public void setYSignal(double y) {
+		this.y = y;
+	}
+
+	@Override
+	public void fire() {
+		float[] signals = this.signals;
+		signals[Structure.X_INDEX] = (float) x;
+		signals[Structure.Y_INDEX] = (float) y;
+		int size = structure.size();
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+			signals[neuronIndex] = fireNeuron(neuronIndex);
+		}
+	}
+
+	/**
+	 * Same operations than {@link CompiledNetwork#fireNeuron}, in single
+	 * precision.
+	 */
+	private float fireNeuron(int neuronIndex) {
+		float[] signals = this.signals;
+		int[] inputs = structure.inputs;
+		int from = structure.inputsStart[neuronIndex];
+		int to = structure.inputsStart[neuronIndex + 1];
+		float signal;
+		switch (structure.operations[neuronIndex]) {
+		case Structure.CONSTANT:
+			return parameters[neuronIndex];
+		case Structure.SUM:
+		case Structure.WEIGHTED_SUM:
+			signal = 0;
+			for (int i = from; i < to; i++) {
+				signal += signals[inputs[i]];
+			}
+			return structure.operations[neuronIndex] == Structure.SUM ? signal : signal * parameters[neuronIndex];
+		case Structure.DOT:
+			signal = 0;
+			for (int i = from; i < to; i++) {
+				signal += signals[inputs[i]] * inputParameters[i];
+			}
+			return signal;
+		case Structure.MIN:
+			if (from == to) {
+				return 0;
+			}
+			signal = signals[inputs[from]];
+			for (int i = from + 1; i < to; i++) {
+				signal = min(signal, signals[inputs[i]]);
+			}
+			return signal;
+		case Structure.MAX:
+			if (from == to) {
+				return 0;
+			}
+			signal = signals[inputs[from]];
+			for (int i = from + 1; i < to; i++) {
+				signal = max(signal, signals[inputs[i]]);
+			}
+			return signal;
+		case Structure.RANDOM:
+		case Structure.SUPPLIED:
+			return (float) ((Rand) structure.externals[neuronIndex]).next();
+		case Structure.FUNCTION:
+			for (int i = from; i < to; i++) {
+				functionInputs[i] = signals[inputs[i]];
+			}
+			return (float) ((NeuralFunction) structure.externals[neuronIndex]).compute(functionInputs, from, to);
+		case Structure.NEURON:
+			for (int i = from; i < to; i++) {
+				neuronSignals[inputs[i]] = signals[inputs[i]];
+			}
+			Neuron neuron = (Neuron) structure.externals[neuronIndex];
+			neuron.fire(neuronSignals, inputs, from, to);
+			return (float) neuron.signal();
+		default:
+			throw new IllegalStateException("Unknown operation " + structure.operations[neuronIndex]);
+		}
+	}
+
+	/**
+	 * When the {@link Structure} is feed-forward, fire the samples neuron by
+	 * neuron, like {@link CompiledNetwork#fireBatch}, with loops simple enough to
+	 * be vectorized by the JIT. Otherwise, fire each sample in turn.
+	 */
+	@Override
+	public void fireBatch(double[] xs, double[] ys, double[] dxOut, double[] dyOut, int count) {
+		if (!structure.isFeedForward || count < 2) {
+			NeuralNetwork.super.fireBatch(xs, ys, dxOut, dyOut, count);
+			return;
+		}
+
+		byte[] operations = structure.operations;
+		int[] inputsStart = structure.inputsStart;
+		int[] inputs = structure.inputs;
+		int size = operations.length;
+		if (batchSignals.length < size * count) {
+			batchSignals = new float[size * count];
+		}
+		float[] batch = batchSignals;
+
+		for (int lane = 0; lane < count; lane++) {
+			batch[Structure.X_INDEX * count + lane] = (float) xs[lane];
+			batch[Structure.Y_INDEX * count + lane] = (float) ys[lane];
+		}
+		// Random sources are consumed sample by sample, in index order, like fires
+		for (int lane = 0; lane < count; lane++) {
+			for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+				byte operation = operations[neuronIndex];
+				if (operation == Structure.RANDOM || operation == Structure.SUPPLIED) {
+					batch[neuronIndex * count + lane] = (float) ((Rand) structure.externals[neuronIndex]).next();
+				}
+			}
+		}
+
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+			int from = inputsStart[neuronIndex];
+			int to = inputsStart[neuronIndex + 1];
+			int start = neuronIndex * count;
+			int end = start + count;
+			switch (operations[neuronIndex]) {
+			case Structure.CONSTANT:
+				Arrays.fill(batch, start, end, parameters[neuronIndex]);
+				break;
+			case Structure.RANDOM:
+			case Structure.SUPPLIED:
+				break;// Already loaded
+			case Structure.SUM:
+			case Structure.WEIGHTED_SUM:
+				Arrays.fill(batch, start, end, 0);
+				for (int i = from; i < to; i++) {
+					int source = inputs[i] * count - start;
+					for (int lane = start; lane < end; lane++) {
+						batch[lane] += batch[source + lane];
+					}
+				}
+				if (operations[neuronIndex] == Structure.WEIGHTED_SUM) {
+					float weight = parameters[neuronIndex];
+					for (int lane = start; lane < end; lane++) {
+						batch[lane] *= weight;
+					}
+				}
+				break;
+			case Structure.DOT:
+				Arrays.fill(batch, start, end, 0);
+				for (int i = from; i < to; i++) {
+					int source = inputs[i] * count - start;
+					float weight = inputParameters[i];
+					for (int lane = start; lane < end; lane++) {
+						batch[lane] += batch[source + lane] * weight;
+					}
+				}
+				break;
+			case Structure.MIN:
+				if (from == to) {
+					Arrays.fill(batch, start, end, 0);
+					break;
+				}
+				System.arraycopy(batch, inputs[from] * count, batch, start, count);
+				for (int i = from + 1; i < to; i++) {
+					int source = inputs[i] * count - start;
+					for (int lane = start; lane < end; lane++) {
+						batch[lane] = min(batch[lane], batch[source + lane]);
+					}
+				}
+				break;
+			case Structure.MAX:
+				if (from == to) {
+					Arrays.fill(batch, start, end, 0);
+					break;
+				}
+				System.arraycopy(batch, inputs[from] * count, batch, start, count);
+				for (int i = from + 1; i < to; i++) {
+					int source = inputs[i] * count - start;
+					for (int lane = start; lane < end; lane++) {
+						batch[lane] = max(batch[lane], batch[source + lane]);
+					}
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unsupported operation on lanes " + operations[neuronIndex]);
+			}
+		}
+
+		for (int lane = 0; lane < count; lane++) {
+			dxOut[lane] = batch[structure.dXIndex * count + lane];
+			dyOut[lane] = batch[structure.dYIndex * count + lane];
+		}
+
+		// Same state as after firing the last sample
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			signals[neuronIndex] = batch[neuronIndex * count + count - 1];
+		}
+		x = xs[count - 1];
+		y = ys[count - 1];
+	}
+
+	@Override
+	public double dXSignal() {
+		return signals[structure.dXIndex];
+	}
+
+	@Override
+	public double dYSignal() {
+		return signals[structure.dYIndex];
+	}
+
+	/**
+	 * Positions where a {@link FloatNetwork} does not decide the same move than
+	 * its double precision reference.
+	 */
+	public static record Divergence(Bounds bounds, List<Position> positions) {
+
+		/**
+		 * @param network the network to compare with its single precision version
+		 * @param bounds  the positions to compare, inclusive
+		 * @return the positions where both versions of the network decide different
+		 *         moves, unless its moves do not only depend on its position
+		 */
+		public static Optional<Divergence> measure(NeuralNetwork network, Bounds bounds) {
+			if (!(network instanceof StructuredNetwork structured && structured.structure().isDeterministic)) {
+				return Optional.empty();
+			}
+
+			Structure structure = structured.structure();
+			NeuralNetwork reference = structure.instantiate();
+			NeuralNetwork reduced = new FloatNetwork(structure);
+			List<Position> positions = new ArrayList<>();
+			for (int y = bounds.min().y(); y <= bounds.max().y(); y++) {
+				for (int x = bounds.min().x(); x <= bounds.max().x(); x++) {
+					if (moveCode(reference, x, y) != moveCode(reduced, x, y)) {
+						positions.add(Position.at(x, y));
+					}
+				}
+			}
+			return Optional.of(new Divergence(bounds, Collections.unmodifiableList(positions)));
+		}
+
+		private static byte moveCode(NeuralNetwork network, int x, int y) {
+			network.setXSignal(x);
+			network.setYSignal(y);
+			network.fire();
+			return Position.Move.code(AgentNetwork.toUnitaryMove(network.dXSignal()),
+					AgentNetwork.toUnitaryMove(network.dYSignal()));
+		}
+
+		/**
+		 * @return the proportion of positions with different moves, from 0 to 1
+		 */
+		public double rate() {
+			return (double) positions.size() / ((bounds.width() + 1L) * (bounds.height() + 1L));
+		}
+
+		/**
+		 * @return <code>true</code> if the single precision network decides the same
+		 *         moves on all the positions
+		 */
+		public boolean isSafe() {
+			return positions.isEmpty();
+		}
+	}
+}
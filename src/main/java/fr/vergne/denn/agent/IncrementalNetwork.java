@@ -0,0 +1,132 @@
+package fr.vergne.denn.agent;
+
+import java.util.BitSet;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+
+/**
+ * {@link NeuralNetwork} firing only the neurons which may change. Each neuron
+ * knows its readers, computed once from the {@link Structure}. When the signal
+ * of a neuron changes, its readers are marked as dirty, and only dirty neurons
+ * are fired. Moving along a single axis, or staying in place, thus fires only
+ * the neurons depending on the changed inputs.
+ * <p>
+ * Neurons follow the same ordering semantics than {@link CompiledNetwork}: a
+ * reader fired before the changed neuron read its previous signal, so it
+ * remains dirty until the next fire. Random and supplied signals, as well as
+ * neurons which are not built-in, may change on each fire, so they are always
+ * fired, in the same order than a full fire.
+ */
+class IncrementalNetwork implements StructuredNetwork {
+
+	private final Structure structure;
+	private final double[] signals;
+	private final double[] functionInputs;
+	private final int[] readersStart;
+	private final int[] readers;
+	private final BitSet alwaysDirty;
+	private final BitSet dirty;
+	private double x = 0;
+	private double y = 0;
+	private long firedNeuronsCount = 0;
+
+	IncrementalNetwork(Structure structure) {
+		this.structure = structure;
+		int size = structure.size();
+		this.signals = new double[size];
+		this.functionInputs = new double[structure.inputs.length];
+
+		// Reverse the inputs table: readers of each neuron, in a CSR-like table
+		this.readersStart = new int[size + 1];
+		for (int input : structure.inputs) {
+			readersStart[input + 1]++;
+		}
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			readersStart[neuronIndex + 1] += readersStart[neuronIndex];
+		}
+		this.readers = new int[structure.inputs.length];
+		int[] readersEnd = readersStart.clone();
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			for (int i = structure.inputsStart[neuronIndex]; i < structure.inputsStart[neuronIndex + 1]; i++) {
+				readers[readersEnd[structure.inputs[i]]++] = neuronIndex;
+			}
+		}
+
+		this.alwaysDirty = new BitSet(size);
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < size; neuronIndex++) {
+			switch (structure.operations[neuronIndex]) {
+			case Structure.RANDOM:
+			case Structure.SUPPLIED:
+			case Structure.FUNCTION:
+			case Structure.NEURON:
+				alwaysDirty.set(neuronIndex);
+			}
+		}
+		this.dirty = new BitSet(size);
+		dirty.set(Structure.INPUTS_COUNT, size);// Everything on the first fire
+	}
+
+	@Override
+	public Structure structure() {
+		return structure;
+	}
+
+	@Override
+	public boolean isGroupable() {
+		return false;// Tracks its dirty neurons and fired neurons count
+	}
+
+	/**
+	 * @return the number of neurons fired so far, excluding the inputs
+	 */
+	long firedNeuronsCount() {
+		return firedNeuronsCount;
+	}
+
+	@Override
+	public void setXSignal(double x) {
+		this.x = x;
+	}
+
+	@Override
+	public void setYSignal(double y) {
+		this.y = y;
+	}
+
+	@Override
+	public void fire() {
+		Structure structure = this.structure;
+		double[] signals = this.signals;
+		BitSet dirty = this.dirty;
+
+		update(Structure.X_INDEX, x);
+		update(Structure.Y_INDEX, y);
+		dirty.or(alwaysDirty);
+		// Readers marked before the current index stay dirty for the next fire
+		for (int neuronIndex = dirty.nextSetBit(0); neuronIndex >= 0; neuronIndex = dirty
+				.nextSetBit(neuronIndex + 1)) {
+			dirty.clear(neuronIndex);
+			update(neuronIndex, CompiledNetwork.fireNeuron(structure, neuronIndex, signals, functionInputs));
+			firedNeuronsCount++;
+		}
+	}
+
+	private void update(int neuronIndex, double signal) {
+		if (Double.doubleToRawLongBits(signals[neuronIndex]) != Double.doubleToRawLongBits(signal)) {
+			signals[neuronIndex] = signal;
+			for (int i = readersStart[neuronIndex]; i < readersStart[neuronIndex + 1]; i++) {
+				dirty.set(readers[i]);
+			}
+		}
+	}
+
+	@Override
+	public double dXSignal() {
+		return signals[structure.dXIndex];
+	}
+
+	@Override
+	public double dYSignal() {
+		return signals[structure.dYIndex];
+	}
+}
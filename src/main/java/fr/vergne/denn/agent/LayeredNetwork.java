@@ -27,6 +27,20 @@ public class LayeredNetwork {
 			return new Neuron(dx);
 		}
 
+		/**
+		 * Same signal than summing the layer weighted with
+		 * {@link Layer#weighted(double...)}, but with a single neuron.
+		 */
+		public Neuron dotProduct(Layer layer, double... weights) {
+			layer.requireWeights(weights);
+			int dot = index++;
+			builder.createNeuronWithDotProductFunction(weights).moveTo(dot);
+			layer.indexes.forEach(index -> {
+				builder.readSignalFrom(index);
+			});
+			return new Neuron(dot);
+		}
+
 		public Programmer setDx(Neuron dx) {
 			builder.setDXAt(dx.index);
 			return this;
@@ -82,12 +96,7 @@ public class LayeredNetwork {
 		}
 
 		public Layer weighted(double... weights) {
-			int requiredSize = indexes.size();
-			int actualSize = weights.length;
-			if (actualSize != requiredSize) {
-				throw new IllegalArgumentException(
-						"Your layer requires " + requiredSize + " weights, currently " + actualSize);
-			}
+			requireWeights(weights);
 
 			List<Integer> newIndexes = new LinkedList<>();
 			for (int i = 0; i < indexes.size(); i++) {
@@ -101,6 +110,15 @@ public class LayeredNetwork {
 			}
 			return new Layer(builder, newIndexes, x, y, indexSupplier);
 		}
+
+		private void requireWeights(double[] weights) {
+			int requiredSize = indexes.size();
+			int actualSize = weights.length;
+			if (actualSize != requiredSize) {
+				throw new IllegalArgumentException(
+						"Your layer requires " + requiredSize + " weights, currently " + actualSize);
+			}
+		}
 	}
 
 	public static class Neuron {
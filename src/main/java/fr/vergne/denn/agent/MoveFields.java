@@ -0,0 +1,283 @@
+package fr.vergne.denn.agent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.vergne.denn.Measure;
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.AgentNetwork;
+import fr.vergne.denn.agent.adn.Chromosome;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.utils.Position.Bounds;
+
+/**
+ * Cache of the moves decided by deterministic agents, whose networks only
+ * depend on their position. Each program has its move field: one byte per cell
+ * of the terrain, holding the code of the move decided there. Fields are filled
+ * lazily, the network being fired only the first time an agent decides on a
+ * cell. Agents sharing the same chromosome share the same field.
+ * <p>
+ * Fields can also be filled at once when created, from the {@link MoveMap} of
+ * the compiled structure of the network. The interval analysis then finds the
+ * moves of the whole terrain by regions, rather than firing the network on
+ * each cell.
+ * <p>
+ * Fields are kept within a memory budget. Once exceeded, a field is evicted
+ * following the CLOCK algorithm: fields used since the last sweep get a second
+ * chance, the first other one is evicted. The agents using it fill a new one
+ * when they need it again.
+ * <p>
+ * The cache properties can be observed with {@link Measure}:
+ *
+ * <pre>
+ * <code>
+ * Measure.of(MoveFields::hitsCount)
+ *     .feeding(count -> System.out.println("hits = " + count))
+ *     .from(moveFields);
+ * </code>
+ * </pre>
+ */
+public class MoveFields {
+
+	private final int width;
+	private final int height;
+	private final int maxFieldsCount;
+	private final boolean isFilledFromMoveMaps;
+	private final Map<ChromosomeKey, Field> fields = new HashMap<>();
+	private final Deque<Field> clock = new ArrayDeque<>();
+	private final LongAdder hitsCount = new LongAdder();
+	private final LongAdder missesCount = new LongAdder();
+	private final LongAdder evictionsCount = new LongAdder();
+	private final LongAdder filledFieldsCount = new LongAdder();
+
+	/**
+	 * @param width       the width of the terrain, positions beyond are not cached
+	 * @param height      the height of the terrain, positions beyond are not
+	 *                    cached
+	 * @param budgetBytes the memory available for the fields, each taking
+	 *                    <code>width * height</code> bytes
+	 */
+	public MoveFields(int width, int height, long budgetBytes) {
+		this(width, height, budgetBytes, false);
+	}
+
+	/**
+	 * @param width                the width of the terrain, positions beyond are
+	 *                             not cached
+	 * @param height               the height of the terrain, positions beyond are
+	 *                             not cached
+	 * @param budgetBytes          the memory available for the fields, each
+	 *                             taking <code>width * height</code> bytes
+	 * @param isFilledFromMoveMaps whether the fields of compiled networks are
+	 *                             filled at once from their {@link MoveMap}
+	 */
+	public MoveFields(int width, int height, long budgetBytes, boolean isFilledFromMoveMaps) {
+		if (width < 1 || height < 1) {
+			throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+		}
+		long fieldBytes = (long) width * height;
+		if (budgetBytes < fieldBytes) {
+			throw new IllegalArgumentException(
+					"Budget must allow at least one field of " + fieldBytes + " bytes, currently " + budgetBytes);
+		}
+		this.width = width;
+		this.height = height;
+		this.maxFieldsCount = (int) Math.min(Integer.MAX_VALUE, budgetBytes / fieldBytes);
+		this.isFilledFromMoveMaps = isFilledFromMoveMaps;
+	}
+
+	/**
+	 * @return the maximal number of fields kept at once
+	 */
+	public int maxFieldsCount() {
+		return maxFieldsCount;
+	}
+
+	/**
+	 * @return the number of fields currently kept
+	 */
+	public synchronized int fieldsCount() {
+		return fields.size();
+	}
+
+	/**
+	 * @return the number of moves read from a field so far
+	 */
+	public long hitsCount() {
+		return hitsCount.sum();
+	}
+
+	/**
+	 * @return the number of moves computed by firing a network so far
+	 */
+	public long missesCount() {
+		return missesCount.sum();
+	}
+
+	/**
+	 * @return the number of fields evicted so far
+	 */
+	public long evictionsCount() {
+		return evictionsCount.sum();
+	}
+
+	/**
+	 * @return the number of fields filled at once from a {@link MoveMap} so far
+	 */
+	public long filledFieldsCount() {
+		return filledFieldsCount.sum();
+	}
+
+	/**
+	 * @param network    the deterministic network of the agent
+	 * @param chromosome the chromosome the network is built from
+	 * @return an {@link AgentNetwork} reading the moves from the field of the
+	 *         chromosome, and filling it from the network when unknown
+	 */
+	AgentNetwork forAgent(NeuralNetwork network, Chromosome chromosome) {
+		Structure structure = isFilledFromMoveMaps && network instanceof StructuredNetwork structured
+				&& structured.structure().isDeterministic ? structured.structure() : null;
+		return new CachedNetwork(network.forAgent(), new ChromosomeKey(chromosome.bytes()), structure);
+	}
+
+	/**
+	 * @param structure the structure to fill a new field from, if any
+	 */
+	private Field fieldFor(ChromosomeKey key, Structure structure) {
+		Field field = existingFieldFor(key);
+		if (field == null) {
+			// Filled outside the lock, so another agent may add the field meanwhile
+			field = addFieldFor(key, newCodes(structure));
+		}
+		return field;
+	}
+
+	private byte[] newCodes(Structure structure) {
+		if (structure == null) {
+			return new byte[width * height];
+		}
+		Bounds terrain = new Bounds(Position.at(0, 0), Position.at(width - 1, height - 1));
+		byte[] codes = MoveMap.analyse(structure, terrain).codes();
+		for (int cell = 0; cell < codes.length; cell++) {
+			codes[cell]++;// Code + 1, like the cells filled lazily
+		}
+		filledFieldsCount.increment();
+		return codes;
+	}
+
+	private synchronized Field existingFieldFor(ChromosomeKey key) {
+		Field field = fields.get(key);
+		if (field != null) {
+			field.referenced = true;
+		}
+		return field;
+	}
+
+	private synchronized Field addFieldFor(ChromosomeKey key, byte[] codes) {
+		Field field = fields.get(key);
+		if (field == null) {
+			field = new Field(key, codes);
+			field.referenced = true;// So the sweep making room for it does not evict it
+			fields.put(key, field);
+			clock.addLast(field);
+			while (clock.size() > maxFieldsCount) {
+				Field candidate = clock.pollFirst();
+				if (candidate.referenced) {
+					candidate.referenced = false;
+					clock.addLast(candidate);
+				} else {
+					candidate.codes = null;
+					fields.remove(candidate.key);
+					evictionsCount.increment();
+				}
+			}
+		}
+		field.referenced = true;
+		return field;
+	}
+
+	private static class Field {
+		private final ChromosomeKey key;
+		private volatile byte[] codes;// Code + 1 for each cell, 0 if unknown, null once evicted
+		private boolean referenced;// Approximate, so hits do not synchronize
+
+		Field(ChromosomeKey key, byte[] codes) {
+			this.key = key;
+			this.codes = codes;
+		}
+	}
+
+	class CachedNetwork implements AgentNetwork {
+		private final AgentNetwork network;
+		private final ChromosomeKey key;
+		private final Structure structure;
+		private Field field;
+		private int x;
+		private int y;
+		private byte moveCode;
+
+		CachedNetwork(AgentNetwork network, ChromosomeKey key, Structure structure) {
+			this.network = network;
+			this.key = key;
+			this.structure = structure;
+		}
+
+		@Override
+		public void setPosition(Position position) {
+			setPosition(position.x(), position.y());
+		}
+
+		@Override
+		public void setPosition(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		@Override
+		public void fire() {
+			if (x < 0 || x >= width || y < 0 || y >= height) {
+				moveCode = fireNetwork();
+				return;
+			}
+
+			Field field = this.field;
+			byte[] codes = field == null ? null : field.codes;
+			while (codes == null) {// Evicted fields are replaced
+				field = fieldFor(key, structure);
+				this.field = field;
+				codes = field.codes;
+			}
+
+			int cell = y * width + x;
+			byte cachedCode = codes[cell];
+			if (cachedCode == 0) {
+				missesCount.increment();
+				moveCode = fireNetwork();
+				codes[cell] = (byte) (moveCode + 1);
+			} else {
+				hitsCount.increment();
+				field.referenced = true;
+				moveCode = (byte) (cachedCode - 1);
+			}
+		}
+
+		private byte fireNetwork() {
+			network.setPosition(x, y);
+			network.fire();
+			return network.getMoveCode();
+		}
+
+		@Override
+		public Position.Move getMove() {
+			return Position.Move.fromCode(moveCode);
+		}
+
+		@Override
+		public byte getMoveCode() {
+			return moveCode;
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package fr.vergne.denn.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.AgentNetwork;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.utils.Position.Bounds;
+
+/**
+ * Moves decided by a deterministic network over a whole area, as a partition
+ * of rectangular regions with a constant move. Since moves are rounded and
+ * clamped, a network has at most 9 different moves, which usually cover large
+ * regions.
+ * <p>
+ * The map is built by interval analysis: the signals of a rectangle of
+ * positions are bounded by propagating the bounds of X and Y through the
+ * neurons. Built-in functions are monotonic, even with floating point rounding,
+ * so the bounds hold for every position of the rectangle. When both moves are
+ * the same for the lower and upper bounds, the whole rectangle has this move.
+ * Otherwise, the rectangle is split in two along its longest side, until it is
+ * a single position, where the bounds are the exact signals. Bounds going
+ * beyond finite values are not trusted, since they may hide NaN signals.
+ */
+public class MoveMap {
+
+	public static record Region(Bounds bounds, byte moveCode) {
+	}
+
+	private final Bounds bounds;
+	private final List<Region> regions;
+	private final int analysesCount;
+
+	private MoveMap(Bounds bounds, List<Region> regions, int analysesCount) {
+		this.bounds = bounds;
+		this.regions = Collections.unmodifiableList(regions);
+		this.analysesCount = analysesCount;
+	}
+
+	/**
+	 * @param network the network to analyse
+	 * @param bounds  the positions to analyse, inclusive
+	 * @return the moves of the network over the bounds, unless its moves do not
+	 *         only depend on its position
+	 */
+	public static Optional<MoveMap> analyse(NeuralNetwork network, Bounds bounds) {
+		if (network instanceof StructuredNetwork structured && structured.structure().isDeterministic) {
+			return Optional.of(analyse(structured.structure(), bounds));
+		}
+		return Optional.empty();
+	}
+
+	static MoveMap analyse(Structure structure, Bounds bounds) {
+		Analyser analyser = new Analyser(structure);
+		analyser.split(bounds.min().x(), bounds.min().y(), bounds.max().x(), bounds.max().y());
+		return new MoveMap(bounds, analyser.regions, analyser.analysesCount);
+	}
+
+	public Bounds bounds() {
+		return bounds;
+	}
+
+	/**
+	 * @return the regions of constant moves, covering the bounds without overlap
+	 */
+	public List<Region> regions() {
+		return regions;
+	}
+
+	/**
+	 * @return the number of rectangles analysed to build this map
+	 */
+	public int analysesCount() {
+		return analysesCount;
+	}
+
+	/**
+	 * @return the code of the move for each position of the bounds, row by row,
+	 *         as provided by {@link Position.Move#code()}
+	 */
+	public byte[] codes() {
+		int minX = bounds.min().x();
+		int minY = bounds.min().y();
+		int width = bounds.width() + 1;
+		byte[] codes = new byte[width * (bounds.height() + 1)];
+		for (Region region : regions) {
+			Bounds regionBounds = region.bounds();
+			for (int y = regionBounds.min().y(); y <= regionBounds.max().y(); y++) {
+				int rowStart = (y - minY) * width - minX;
+				for (int x = regionBounds.min().x(); x <= regionBounds.max().x(); x++) {
+					codes[rowStart + x] = region.moveCode();
+				}
+			}
+		}
+		return codes;
+	}
+
+	private static class Analyser {
+		private final Structure structure;
+		private final double[] lows;
+		private final double[] highs;
+		private final boolean[] trusted;
+		private final List<Region> regions = new ArrayList<>();
+		private int analysesCount = 0;
+
+		Analyser(Structure structure) {
+			this.structure = structure;
+			this.lows = new double[structure.size()];
+			this.highs = new double[structure.size()];
+			this.trusted = new boolean[structure.size()];
+		}
+
+		void split(int minX, int minY, int maxX, int maxY) {
+			propagate(minX, minY, maxX, maxY);
+			analysesCount++;
+			boolean isPosition = minX == maxX && minY == maxY;
+			int dXIndex = structure.dXIndex;
+			int dYIndex = structure.dYIndex;
+			int lowDX = AgentNetwork.toUnitaryMove(lows[dXIndex]);
+			int lowDY = AgentNetwork.toUnitaryMove(lows[dYIndex]);
+			if (isPosition || trusted[dXIndex] && trusted[dYIndex]//
+					&& lowDX == AgentNetwork.toUnitaryMove(highs[dXIndex])//
+					&& lowDY == AgentNetwork.toUnitaryMove(highs[dYIndex])) {
+				Bounds bounds = Bounds.between(Position.at(minX, minY), Position.at(maxX, maxY));
+				regions.add(new Region(bounds, Position.Move.code(lowDX, lowDY)));
+			} else if (maxX - minX >= maxY - minY) {
+				int middleX = minX + (maxX - minX) / 2;
+				split(minX, minY, middleX, maxY);
+				split(middleX + 1, minY, maxX, maxY);
+			} else {
+				int middleY = minY + (maxY - minY) / 2;
+				split(minX, minY, maxX, middleY);
+				split(minX, middleY + 1, maxX, maxY);
+			}
+		}
+
+		/**
+		 * Same operations than {@link CompiledNetwork#fire()}, on the lower and upper
+		 * bounds. On a single position, both bounds are the exact signal.
+		 */
+		private void propagate(int minX, int minY, int maxX, int maxY) {
+			byte[] operations = structure.operations;
+			int[] inputsStart = structure.inputsStart;
+			int[] inputs = structure.inputs;
+			lows[Structure.X_INDEX] = minX;
+			highs[Structure.X_INDEX] = maxX;
+			lows[Structure.Y_INDEX] = minY;
+			highs[Structure.Y_INDEX] = maxY;
+			trusted[Structure.X_INDEX] = true;
+			trusted[Structure.Y_INDEX] = true;
+			for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < operations.length; neuronIndex++) {
+				int from = inputsStart[neuronIndex];
+				int to = inputsStart[neuronIndex + 1];
+				double low;
+				double high;
+				boolean isTrusted = true;
+				for (int i = from; i < to; i++) {
+					isTrusted &= trusted[inputs[i]];
+				}
+				switch (operations[neuronIndex]) {
+				case Structure.CONSTANT:
+					low = high = structure.parameters[neuronIndex];
+					break;
+				case Structure.SUM:
+				case Structure.WEIGHTED_SUM:
+					low = 0;
+					high = 0;
+					for (int i = from; i < to; i++) {
+						low += lows[inputs[i]];
+						high += highs[inputs[i]];
+					}
+					if (operations[neuronIndex] == Structure.WEIGHTED_SUM) {
+						double weight = structure.parameters[neuronIndex];
+						if (weight < 0) {
+							double lowSum = low;
+							low = high * weight;
+							high = lowSum * weight;
+						} else {
+							low *= weight;
+							high *= weight;
+						}
+					}
+					break;
+				case Structure.DOT:
+					low = 0;
+					high = 0;
+					for (int i = from; i < to; i++) {
+						double weight = structure.inputParameters[i];
+						if (weight < 0) {
+							low += highs[inputs[i]] * weight;
+							high += lows[inputs[i]] * weight;
+						} else {
+							low += lows[inputs[i]] * weight;
+							high += highs[inputs[i]] * weight;
+						}
+					}
+					break;
+				case Structure.MIN:
+					low = high = 0;
+					if (from < to) {
+						low = lows[inputs[from]];
+						high = highs[inputs[from]];
+						for (int i = from + 1; i < to; i++) {
+							low = Math.min(low, lows[inputs[i]]);
+							high = Math.min(high, highs[inputs[i]]);
+						}
+					}
+					break;
+				case Structure.MAX:
+					low = high = 0;
+					if (from < to) {
+						low = lows[inputs[from]];
+						high = highs[inputs[from]];
+						for (int i = from + 1; i < to; i++) {
+							low = Math.max(low, lows[inputs[i]]);
+							high = Math.max(high, highs[inputs[i]]);
+						}
+					}
+					break;
+				default:
+					throw new IllegalStateException("Unsupported operation for analysis " + operations[neuronIndex]);
+				}
+				lows[neuronIndex] = low;
+				highs[neuronIndex] = high;
+				trusted[neuronIndex] = isTrusted && Double.isFinite(low) && Double.isFinite(high);
+			}
+		}
+	}
+}
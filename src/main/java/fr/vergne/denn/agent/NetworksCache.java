@@ -0,0 +1,271 @@
+package fr.vergne.denn.agent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.vergne.denn.Measure;
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+import fr.vergne.denn.agent.adn.Chromosome;
+import fr.vergne.denn.agent.adn.Program;
+
+/**
+ * Cache of the compiled networks of chromosomes. Building a network from its
+ * chromosome means optimizing and compiling it, while agents often share the
+ * same chromosome, like the agents created on each path of an attractor. The
+ * cache keeps the immutable {@link Structure} compiled for each chromosome, and
+ * each network built from it is a new instance with its own signals.
+ * <p>
+ * Random neurons are not shared either: each instance draws its random signals
+ * from the source of the {@link NeuralNetwork.Builder} it is requested with, like
+ * it would without cache. Only the networks built from the primitives of a
+ * chromosome are cached, the other ones having neurons which may have their own
+ * state.
+ * <p>
+ * Cached structures are instantiated as plain {@link CompiledNetwork}s. So only
+ * the builders of the strategies building such networks use the cache, each
+ * strategy with its own structures. The other builders always build their
+ * networks from the chromosome.
+ * <p>
+ * Chromosomes often only differ by their weights, like the children mutated
+ * with {@link fr.vergne.denn.agent.adn.Mutator#onWeights}. The cache thus also
+ * keeps a {@link WeightsTemplate} per structural fingerprint: a chromosome
+ * which is not cached but shares the fingerprint of a cached one has its
+ * structure patched from the template with its own weights, rather than
+ * optimized and compiled. The template is only compiled once a second
+ * chromosome shares the fingerprint, from that chromosome, so chromosomes
+ * alone with their fingerprint are compiled once.
+ * <p>
+ * Structures are kept within a memory budget, estimated from their size. Once
+ * exceeded, the least recently used structures are evicted.
+ * <p>
+ * The cache properties can be observed with {@link Measure}:
+ *
+ * <pre>
+ * <code>
+ * Measure.of(NetworksCache::hitsCount)
+ *     .feeding(count -> System.out.println("hits = " + count))
+ *     .from(networksCache);
+ * </code>
+ * </pre>
+ */
+public class NetworksCache {
+
+	/**
+	 * The strategies building plain {@link CompiledNetwork}s.
+	 */
+	private static final Set<BuildDefinition> COMPILED_DEFINITIONS = Set.of(BuildStrategy.COMPILED,
+			BuildStrategy.PRUNED, BuildStrategy.OPTIMIZED, BuildStrategy.DENSE);
+
+	private final long budgetBytes;
+	private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long usedBytes = 0;
+	private final LongAdder hitsCount = new LongAdder();
+	private final LongAdder patchesCount = new LongAdder();
+	private final LongAdder missesCount = new LongAdder();
+	private final LongAdder evictionsCount = new LongAdder();
+
+	/**
+	 * @param budgetBytes the memory available for the structures and their keys
+	 */
+	public NetworksCache(long budgetBytes) {
+		if (budgetBytes < 1) {
+			throw new IllegalArgumentException("Budget must be positive, currently " + budgetBytes);
+		}
+		this.budgetBytes = budgetBytes;
+	}
+
+	/**
+	 * @return the memory available for the structures and their keys
+	 */
+	public long budgetBytes() {
+		return budgetBytes;
+	}
+
+	/**
+	 * @return the estimated memory used by the structures currently kept
+	 */
+	public synchronized long usedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * @return the number of structures currently kept, including the templates and
+	 *         the fingerprints waiting for one
+	 */
+	public synchronized int structuresCount() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of networks instantiated from a cached structure so far
+	 */
+	public long hitsCount() {
+		return hitsCount.sum();
+	}
+
+	/**
+	 * @return the number of networks instantiated from a structure patched with
+	 *         their weights so far
+	 */
+	public long patchesCount() {
+		return patchesCount.sum();
+	}
+
+	/**
+	 * @return the number of networks built from their chromosome so far
+	 */
+	public long missesCount() {
+		return missesCount.sum();
+	}
+
+	/**
+	 * @return the number of structures evicted so far
+	 */
+	public long evictionsCount() {
+		return evictionsCount.sum();
+	}
+
+	/**
+	 * @param chromosome the chromosome to build the network from
+	 * @param builder    the builder to use if the chromosome is not cached, which
+	 *                   provides the random source of the network in any case
+	 * @return a new network, computing the same signals than if the builder was
+	 *         executing the chromosome
+	 */
+	NeuralNetwork networkFor(Chromosome chromosome, NeuralNetwork.Builder builder) {
+		BuildDefinition definition = builder.buildDefinition();
+		if (!COMPILED_DEFINITIONS.contains(definition)) {
+			missesCount.increment();
+			Program.executeOn(chromosome.bytes(), builder);
+			return builder.build();
+		}
+
+		byte[] bytes = chromosome.bytes();
+		Key key = new Key(definition, new ChromosomeKey(bytes));
+		Entry entry = entryFor(key);
+		if (entry != null) {
+			hitsCount.increment();
+			return entry.structure.withRandom(builder.random()).instantiate();
+		}
+
+		Fingerprint fingerprint = new Fingerprint(definition, WeightsTemplate.fingerprint(bytes));
+		Entry templateEntry = entryFor(fingerprint);
+		if (templateEntry != null && !templateEntry.isMarker()) {
+			patchesCount.increment();
+			return patch(key, templateEntry.template, bytes, builder);
+		}
+
+		missesCount.increment();
+		Program.executeOn(bytes, builder);
+		if (templateEntry != null) {
+			// Second chromosome of the fingerprint, compiled as a template only
+			WeightsTemplate template = WeightsTemplate.compile(bytes, builder);
+			store(fingerprint, new Entry(template.structure(), template, estimateBytes(fingerprint, template)));
+			return patch(key, template, bytes, builder);
+		}
+		NeuralNetwork network = builder.build();
+		if (network instanceof StructuredNetwork structured && isShareable(structured.structure(), builder.random())) {
+			Structure structure = structured.structure();
+			store(key, new Entry(structure, null, estimateBytes(key.chromosome, structure)));
+			// The template waits for a second chromosome, most having none
+			store(fingerprint, new Entry(null, null, fingerprint.key.bytes().length));
+		}
+		return network;
+	}
+
+	private NeuralNetwork patch(Key key, WeightsTemplate template, byte[] bytes, NeuralNetwork.Builder builder) {
+		Structure structure = template.patch(bytes);
+		store(key, new Entry(structure, null, estimateBytes(key.chromosome, structure)));
+		return structure.withRandom(builder.random()).instantiate();
+	}
+
+	private static boolean isShareable(Structure structure, Rand random) {
+		for (int neuronIndex = Structure.INPUTS_COUNT; neuronIndex < structure.size(); neuronIndex++) {
+			switch (structure.operations[neuronIndex]) {
+			case Structure.RANDOM:
+				if (structure.externals[neuronIndex] != random) {
+					return false;
+				}
+				break;
+			case Structure.SUPPLIED:
+			case Structure.FUNCTION:
+			case Structure.NEURON:
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private synchronized Entry entryFor(Object key) {
+		return entries.get(key);
+	}
+
+	private synchronized void store(Object key, Entry entry) {
+		if (entry.bytes > budgetBytes) {
+			return;
+		}
+		Entry previous = entries.get(key);
+		if (previous != null) {
+			if (!previous.isMarker()) {
+				return;
+			}
+			usedBytes -= previous.bytes;// Replaced by its template
+		}
+		entries.put(key, entry);
+		usedBytes += entry.bytes;
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (usedBytes > budgetBytes) {
+			Entry eldest = iterator.next();
+			iterator.remove();
+			usedBytes -= eldest.bytes;
+			evictionsCount.increment();
+		}
+	}
+
+	/**
+	 * Per neuron: its operation, inputs start, parameter and external. Per input:
+	 * its index and parameter.
+	 */
+	private static long estimateBytes(ChromosomeKey key, Structure structure) {
+		long neuronBytes = Byte.BYTES + Integer.BYTES + Double.BYTES + Integer.BYTES;
+		long inputBytes = Integer.BYTES + Double.BYTES;
+		return key.bytes().length + structure.size() * neuronBytes + structure.inputs.length * inputBytes;
+	}
+
+	/**
+	 * Same as the structure of a chromosome, plus the code index and slot of each
+	 * weight.
+	 */
+	private static long estimateBytes(Fingerprint fingerprint, WeightsTemplate template) {
+		return estimateBytes(fingerprint.key, template.structure()) + template.weightsCount() * 2L * Integer.BYTES;
+	}
+
+	private static record Key(BuildDefinition definition, ChromosomeKey chromosome) {
+	}
+
+	/**
+	 * Key of the templates, distinct from the keys of the chromosomes.
+	 */
+	private static record Fingerprint(BuildDefinition definition, ChromosomeKey key) {
+	}
+
+	/**
+	 * @param template the template of the fingerprint, if it is the key
+	 */
+	private static record Entry(Structure structure, WeightsTemplate template, long bytes) {
+
+		/**
+		 * @return <code>true</code> for a fingerprint seen once, which has no
+		 *         template yet
+		 */
+		boolean isMarker() {
+			return structure == null;
+		}
+	}
+}
@@ -12,6 +12,12 @@ public interface Neural<T> {
 
 		Builder<T> createNeuronWithWeightedSumFunction(double weight);
 
+		/**
+		 * Same signal than a sum of weighted sums, each reading a single input, but
+		 * in a single neuron. Inputs beyond the weights are ignored.
+		 */
+		Builder<T> createNeuronWithDotProductFunction(double... weights);
+
 		Builder<T> createNeuronWithRandomSignal();
 
 		Builder<T> createNeuronWithSumFunction();
@@ -8,14 +8,20 @@ import static java.util.Collections.*;
 import static java.util.Objects.*;
 import static java.util.stream.Collectors.*;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
+import java.util.function.DoubleUnaryOperator;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
+import java.util.random.RandomGenerator;
 import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 
+import fr.vergne.denn.agent.adn.Chromosome;
 import fr.vergne.denn.agent.adn.Program;
 import fr.vergne.denn.utils.Position;
 import fr.vergne.denn.utils.Position.Move;
@@ -34,12 +40,55 @@ public interface NeuralNetwork {
 
 	double dYSignal();
 
+	/**
+	 * Fire the network on each sample, in order, like successive calls to
+	 * {@link #setXSignal(double)}, {@link #setYSignal(double)}, {@link #fire()},
+	 * {@link #dXSignal()} and {@link #dYSignal()}. The network ends in the same
+	 * state as after firing the last sample.
+	 * 
+	 * @param xs    the X signal of each sample
+	 * @param ys    the Y signal of each sample
+	 * @param dxOut where to store the dX signal of each sample
+	 * @param dyOut where to store the dY signal of each sample
+	 * @param count the number of samples to fire
+	 */
+	default void fireBatch(double[] xs, double[] ys, double[] dxOut, double[] dyOut, int count) {
+		for (int i = 0; i < count; i++) {
+			setXSignal(xs[i]);
+			setYSignal(ys[i]);
+			fire();
+			dxOut[i] = dXSignal();
+			dyOut[i] = dYSignal();
+		}
+	}
+
 	interface AgentNetwork {
 		void setPosition(Position position);
 
 		void fire();
 
 		Position.Move getMove();
+
+		/**
+		 * Primitive version of {@link #setPosition(Position)}.
+		 */
+		default void setPosition(int x, int y) {
+			setPosition(Position.at(x, y));
+		}
+
+		/**
+		 * Primitive version of {@link #getMove()}, without allocation.
+		 * 
+		 * @return the code of the move, as provided by {@link Position.Move#code()}
+		 */
+		default byte getMoveCode() {
+			return getMove().code();
+		}
+
+		static int toUnitaryMove(double signal) {
+			int requestedMove = (int) round(signal);
+			return max(-1, min(requestedMove, 1));
+		}
 	}
 
 	default AgentNetwork forAgent() {
@@ -52,6 +101,12 @@ public interface NeuralNetwork {
 				neuralNetwork.setYSignal(position.y());
 			}
 
+			@Override
+			public void setPosition(int x, int y) {
+				neuralNetwork.setXSignal(x);
+				neuralNetwork.setYSignal(y);
+			}
+
 			@Override
 			public void fire() {
 				neuralNetwork.fire();
@@ -59,15 +114,15 @@ public interface NeuralNetwork {
 
 			@Override
 			public Move getMove() {
-				return new Position.Move(//
-						toUnitaryMove(neuralNetwork.dXSignal()), //
-						toUnitaryMove(neuralNetwork.dYSignal())//
-				);
+				return Position.Move.fromCode(getMoveCode());
 			}
 
-			private Integer toUnitaryMove(double signal) {
-				int requestedMove = (int) round(signal);
-				return max(-1, min(requestedMove, 1));
+			@Override
+			public byte getMoveCode() {
+				return Position.Move.code(//
+						AgentNetwork.toUnitaryMove(neuralNetwork.dXSignal()), //
+						AgentNetwork.toUnitaryMove(neuralNetwork.dYSignal())//
+				);
 			}
 		};
 	}
@@ -77,21 +132,104 @@ public interface NeuralNetwork {
 
 	public static interface NeuralFunction {
 		Double compute(DoubleStream inputs);
+
+		/**
+		 * Primitive version of {@link #compute(DoubleStream)}, without boxing. The
+		 * built-in functions implement it directly. By default, it adapts the inputs
+		 * to a stream, so custom functions keep working.
+		 * 
+		 * @param inputs the array containing the input signals
+		 * @param from   the index of the first input signal, inclusive
+		 * @param to     the index of the last input signal, exclusive
+		 * @return the computed signal
+		 */
+		default double compute(double[] inputs, int from, int to) {
+			return compute(Arrays.stream(inputs, from, to));
+		}
 	}
 
 	public static interface Neuron {
 
 		void fire(List<Supplier<Double>> inputs);
 
+		/**
+		 * Primitive version of {@link #fire(List)}, without boxing. The built-in
+		 * neurons implement it directly. By default, it adapts the inputs to
+		 * suppliers, so custom neurons keep working.
+		 * 
+		 * @param signals the signals of all the neurons of the network
+		 * @param inputs  the indexes of the input neurons, within the signals
+		 * @param from    the position of the first input index, inclusive
+		 * @param to      the position of the last input index, exclusive
+		 */
+		default void fire(double[] signals, int[] inputs, int from, int to) {
+			List<Supplier<Double>> suppliers = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				int inputIndex = inputs[i];
+				suppliers.add(() -> signals[inputIndex]);
+			}
+			fire(suppliers);
+		}
+
 		double signal();
 
 		public static Neuron onInputsFunction(NeuralFunction function) {
+			return new FunctionNeuron(function);
+		}
+
+		/**
+		 * {@link Neuron} computing its signal through a {@link NeuralFunction}. Unlike
+		 * anonymous {@link Neuron}s, it exposes its function, so build strategies can
+		 * recognize the built-in ones and compile them.
+		 */
+		static class FunctionNeuron implements Neuron {
+			private final NeuralFunction function;
+			private double[] inputSignals = new double[0];
+			private double signal;
+
+			FunctionNeuron(NeuralFunction function) {
+				this.function = function;
+			}
+
+			@Override
+			public void fire(List<Supplier<Double>> inputs) {
+				signal = function.compute(inputs.stream().mapToDouble(Supplier::get));
+			}
+
+			@Override
+			public void fire(double[] signals, int[] inputs, int from, int to) {
+				int count = to - from;
+				if (inputSignals.length < count) {
+					inputSignals = new double[count];
+				}
+				for (int i = 0; i < count; i++) {
+					inputSignals[i] = signals[inputs[from + i]];
+				}
+				signal = function.compute(inputSignals, 0, count);
+			}
+
+			@Override
+			public double signal() {
+				return signal;
+			}
+
+			public NeuralFunction function() {
+				return function;
+			}
+		}
+
+		public static Neuron onSingleInputFunction(UnaryOperator<Double> operator) {
 			return new Neuron() {
 				private double signal;
 
 				@Override
 				public void fire(List<Supplier<Double>> inputs) {
-					signal = function.compute(inputs.stream().mapToDouble(Supplier::get));
+					signal = operator.apply(inputs.get(0).get());
+				}
+
+				@Override
+				public void fire(double[] signals, int[] inputs, int from, int to) {
+					signal = operator.apply(signals[inputs[from]]);
 				}
 
 				@Override
@@ -101,13 +239,22 @@ public interface NeuralNetwork {
 			};
 		}
 
-		public static Neuron onSingleInputFunction(UnaryOperator<Double> operator) {
+		/**
+		 * Primitive version of {@link #onSingleInputFunction(UnaryOperator)}, without
+		 * boxing.
+		 */
+		public static Neuron onSingleInput(DoubleUnaryOperator operator) {
 			return new Neuron() {
 				private double signal;
 
 				@Override
 				public void fire(List<Supplier<Double>> inputs) {
-					signal = operator.apply(inputs.get(0).get());
+					signal = operator.applyAsDouble(inputs.get(0).get());
+				}
+
+				@Override
+				public void fire(double[] signals, int[] inputs, int from, int to) {
+					signal = operator.applyAsDouble(signals[inputs[from]]);
 				}
 
 				@Override
@@ -126,6 +273,11 @@ public interface NeuralNetwork {
 					signal = supplier.get();
 				}
 
+				@Override
+				public void fire(double[] signals, int[] inputs, int from, int to) {
+					signal = supplier.get();
+				}
+
 				@Override
 				public double signal() {
 					return signal;
@@ -140,6 +292,11 @@ public interface NeuralNetwork {
 					// Nothing to compute
 				}
 
+				@Override
+				public void fire(double[] signals, int[] inputs, int from, int to) {
+					// Nothing to compute
+				}
+
 				@Override
 				public double signal() {
 					return signal;
@@ -153,8 +310,9 @@ public interface NeuralNetwork {
 		static record NeuronDefinition(Neuron neuron, List<Integer> inputIndexes) {
 		}
 
-		private final List<NeuronDefinition> neuronsDefinitions = new LinkedList<>();
+		private final List<NeuronDefinition> neuronsDefinitions = new ArrayList<>();
 		private final Rand random;
+		private final BuildDefinition buildDefinition;
 		private int currentNeuronIndex = 0;
 		private Integer dXIndex = null;
 		private Integer dYIndex = null;
@@ -171,7 +329,12 @@ public interface NeuralNetwork {
 		}
 
 		public Builder(Rand random) {
+			this(random, BuildStrategy.DEFAULT);
+		}
+
+		public Builder(Rand random, BuildDefinition buildDefinition) {
 			this.random = random;
+			this.buildDefinition = buildDefinition;
 			NeuralFunction noFunctionYet = inputs -> {
 				throw new IllegalStateException("Reserved neuron not replaced yet");
 			};
@@ -179,14 +342,37 @@ public interface NeuralNetwork {
 			createNeuronWith(noFunctionYet);// Reserve index for Y
 		}
 
+		Rand random() {
+			return random;
+		}
+
+		BuildDefinition buildDefinition() {
+			return buildDefinition;
+		}
+
+		/**
+		 * @return the definitions of the neurons created so far, in index order
+		 */
+		List<NeuronDefinition> neuronsDefinitions() {
+			return neuronsDefinitions;
+		}
+
+		int dXIndex() {
+			return requireNonNull(dXIndex, "No dX index defined");
+		}
+
+		int dYIndex() {
+			return requireNonNull(dYIndex, "No dY index defined");
+		}
+
 		public Builder createNeuronWith(NeuralFunction function) {
-			neuronsDefinitions.add(new NeuronDefinition(Neuron.onInputsFunction(function), new LinkedList<>()));
+			neuronsDefinitions.add(new NeuronDefinition(Neuron.onInputsFunction(function), new ArrayList<>()));
 			return this;
 		}
 
 		@Override
 		public fr.vergne.denn.agent.Neural.Builder<NeuralNetwork> createNeuronWithRandomSignal() {
-			return createNeuronWith(suppliedSignal(() -> random.next()));
+			return createNeuronWith(randomSignal(random));
 		}
 
 		@Override
@@ -199,6 +385,11 @@ public interface NeuralNetwork {
 			return createNeuronWith(weightedSumFunction(weight));
 		}
 
+		@Override
+		public Builder createNeuronWithDotProductFunction(double... weights) {
+			return createNeuronWith(dotProductFunction(weights));
+		}
+
 		@Override
 		public Builder createNeuronWithSumFunction() {
 			return createNeuronWith(sumFunction());
@@ -259,57 +450,84 @@ public interface NeuralNetwork {
 			return ((index % size) + size) % size;
 		}
 
-		// TODO Compute only neurons having an impact on dX/dY
-		public static enum BuildStrategy {
+		public static interface BuildDefinition {
+			NeuralNetwork buildNetwork(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex);
+		}
+
+		public static enum BuildStrategy implements BuildDefinition {
 			BASE((neuronsDefinitions, dXIndex, dYIndex) -> {
-				double[] inputs = { 0, 0 };
-				neuronsDefinitions.set(0, new NeuronDefinition(Neuron.onSignalSupplier(() -> inputs[0]), emptyList()));
-				neuronsDefinitions.set(1, new NeuronDefinition(Neuron.onSignalSupplier(() -> inputs[1]), emptyList()));
-
-				List<Runnable> neuronComputers = neuronsDefinitions.stream()//
-						.map(definition -> {
-							Neuron outputNeuron = definition.neuron();
-							List<Supplier<Double>> inputSignalSuppliers = definition.inputIndexes().stream()//
-									.map(inputIndex -> neuronsDefinitions.get(inputIndex).neuron())//
-									.map(inputNeuron -> (Supplier<Double>) inputNeuron::signal)//
-									.collect(toList());
-							return (Runnable) () -> outputNeuron.fire(inputSignalSuppliers);
-						}).collect(toList());
-
-				Neuron dXNeuron = neuronsDefinitions.get(dXIndex).neuron();
-				Neuron dYNeuron = neuronsDefinitions.get(dYIndex).neuron();
+				Neuron[] neurons = neuronsDefinitions.stream()//
+						.map(NeuronDefinition::neuron)//
+						.toArray(Neuron[]::new);
+				int[][] neuronsInputs = neuronsDefinitions.stream()//
+						.map(definition -> definition.inputIndexes().stream().mapToInt(Integer::intValue).toArray())//
+						.toArray(int[][]::new);
+				double[] signals = new double[neurons.length];
+				for (int neuronIndex = 2; neuronIndex < neurons.length; neuronIndex++) {
+					signals[neuronIndex] = neurons[neuronIndex].signal();// Read before their first fire
+				}
 
 				return new NeuralNetwork() {
+					private double x = 0;
+					private double y = 0;
 
 					@Override
 					public void setXSignal(double x) {
-						inputs[0] = x;
+						this.x = x;
 					}
 
 					@Override
 					public void setYSignal(double y) {
-						inputs[1] = y;
+						this.y = y;
 					}
 
 					@Override
 					public void fire() {
-						neuronComputers.forEach(Runnable::run);
+						signals[0] = x;
+						signals[1] = y;
+						for (int neuronIndex = 2; neuronIndex < neurons.length; neuronIndex++) {
+							Neuron neuron = neurons[neuronIndex];
+							int[] inputs = neuronsInputs[neuronIndex];
+							neuron.fire(signals, inputs, 0, inputs.length);
+							signals[neuronIndex] = neuron.signal();
+						}
 					}
 
 					@Override
 					public double dXSignal() {
-						return dXNeuron.signal();
+						return signals[dXIndex];
 					}
 
 					@Override
 					public double dYSignal() {
-						return dYNeuron.signal();
+						return signals[dYIndex];
 					}
 
 				};
+			}), //
+			COMPILED((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return CompiledNetwork.compile(neuronsDefinitions, dXIndex, dYIndex).instantiate();
+			}), //
+			PRUNED((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return CompiledNetwork.compilePruned(neuronsDefinitions, dXIndex, dYIndex).instantiate();
+			}), //
+			OPTIMIZED((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return CompiledNetwork.compileOptimized(neuronsDefinitions, dXIndex, dYIndex).instantiate();
+			}), //
+			HIDDEN_CLASS((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return BytecodeNetwork.generate(CompiledNetwork.compileOptimized(neuronsDefinitions, dXIndex, dYIndex));
+			}), //
+			TIERED((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return Tiering.DEFAULT.buildNetwork(neuronsDefinitions, dXIndex, dYIndex);
+			}), //
+			INCREMENTAL((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return new IncrementalNetwork(CompiledNetwork.compileOptimized(neuronsDefinitions, dXIndex, dYIndex));
+			}), //
+			DENSE((neuronsDefinitions, dXIndex, dYIndex) -> {
+				return CompiledNetwork.compileDense(neuronsDefinitions, dXIndex, dYIndex).instantiate();
 			});
 
-			public static final BuildStrategy DEFAULT = BuildStrategy.BASE;
+			public static final BuildStrategy DEFAULT = BuildStrategy.OPTIMIZED;
 
 			private final BuildDefinition buildDefinition;
 
@@ -317,21 +535,18 @@ public interface NeuralNetwork {
 				this.buildDefinition = factory;
 			}
 
+			@Override
 			public NeuralNetwork buildNetwork(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
 				return buildDefinition.buildNetwork(neuronsDefinitions, dXIndex, dYIndex);
 			}
 
-			static interface BuildDefinition {
-				NeuralNetwork buildNetwork(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex);
-			}
-
 		}
 
 		@Override
 		public NeuralNetwork build() {
 			requireNonNull(dXIndex, "No dX index defined");
 			requireNonNull(dYIndex, "No dY index defined");
-			return BuildStrategy.DEFAULT.buildNetwork(neuronsDefinitions, dXIndex, dYIndex);
+			return buildDefinition.buildNetwork(neuronsDefinitions, dXIndex, dYIndex);
 		}
 
 		// TODO Rename NeuronRetriever once old builder is removed
@@ -376,11 +591,15 @@ public interface NeuralNetwork {
 		}
 
 		public static NeuralFunction fixedSignal(double signal) {
-			return inputs -> signal;
+			return new FixedSignal(signal);
 		}
 
 		public static NeuralFunction suppliedSignal(Supplier<Double> signalSupplier) {
-			return inputs -> signalSupplier.get();
+			return new SuppliedSignal(signalSupplier);
+		}
+
+		public static NeuralFunction randomSignal(Rand random) {
+			return new RandomSignal(random);
 		}
 
 		public static NeuralFunction streamFunction(Function<DoubleStream, Double> function) {
@@ -388,19 +607,162 @@ public interface NeuralNetwork {
 		}
 
 		public static NeuralFunction sumFunction() {
-			return streamFunction(inputs -> inputs.sum());
+			return new SumFunction();
 		}
 
 		public static NeuralFunction weightedSumFunction(double weight) {
-			return streamFunction(inputs -> inputs.sum() * weight);
+			return new WeightedSumFunction(weight);
+		}
+
+		/**
+		 * @param weights the weight of each input, in order
+		 * @return a function summing each input multiplied by its weight, the inputs
+		 *         without weight being ignored
+		 */
+		public static NeuralFunction dotProductFunction(double... weights) {
+			return new DotProductFunction(weights.clone());
 		}
 
 		public static NeuralFunction minFunction() {
-			return streamFunction(inputs -> inputs.min().orElse(0));
+			return new MinFunction();
 		}
 
 		public static NeuralFunction maxFunction() {
-			return streamFunction(inputs -> inputs.max().orElse(0));
+			return new MaxFunction();
+		}
+
+		// Built-in functions, identifiable by the compiling strategies
+
+		static record FixedSignal(double signal) implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				return signal;
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				return signal;
+			}
+		}
+
+		static record SuppliedSignal(Supplier<Double> signalSupplier) implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				return signalSupplier.get();
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				return signalSupplier.get();
+			}
+		}
+
+		static record RandomSignal(Rand random) implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				return random.next();
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				return random.next();
+			}
+		}
+
+		// Compensated sums, with DoubleStream.sum() in both contracts
+
+		static record SumFunction() implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				return inputs.sum();
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				return Arrays.stream(inputs, from, to).sum();
+			}
+		}
+
+		static record WeightedSumFunction(double weight) implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				return inputs.sum() * weight;
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				return Arrays.stream(inputs, from, to).sum() * weight;
+			}
+		}
+
+		static record DotProductFunction(double[] weights) implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				double[] signals = inputs.toArray();
+				return compute(signals, 0, signals.length);
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				// Same operations than weighted sums of single inputs summed together
+				int count = Math.min(to - from, weights.length);
+				return IntStream.range(0, count).mapToDouble(i -> inputs[from + i] * weights[i]).sum();
+			}
+
+			@Override
+			public boolean equals(Object obj) {
+				return obj instanceof DotProductFunction that && Arrays.equals(this.weights, that.weights);
+			}
+
+			@Override
+			public int hashCode() {
+				return Arrays.hashCode(weights);
+			}
+
+			@Override
+			public String toString() {
+				return "DotProductFunction" + Arrays.toString(weights);
+			}
+		}
+
+		static record MinFunction() implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				double[] signals = inputs.toArray();
+				return compute(signals, 0, signals.length);
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				if (from == to) {
+					return 0;
+				}
+				double signal = inputs[from];
+				for (int i = from + 1; i < to; i++) {
+					signal = Math.min(signal, inputs[i]);
+				}
+				return signal;
+			}
+		}
+
+		static record MaxFunction() implements NeuralFunction {
+			@Override
+			public Double compute(DoubleStream inputs) {
+				double[] signals = inputs.toArray();
+				return compute(signals, 0, signals.length);
+			}
+
+			@Override
+			public double compute(double[] inputs, int from, int to) {
+				if (from == to) {
+					return 0;
+				}
+				double signal = inputs[from];
+				for (int i = from + 1; i < to; i++) {
+					signal = Math.max(signal, inputs[i]);
+				}
+				return signal;
+			}
 		}
 
 		public static interface BuilderStep {
@@ -409,12 +771,53 @@ public interface NeuralNetwork {
 	}
 
 	public static class Factory {
-		private final Supplier<Neural.Builder<NeuralNetwork>> networkBuilderGenerator;
-		private final Random random;
-
-		public Factory(Supplier<Neural.Builder<NeuralNetwork>> networkBuilderGenerator, Random random) {
+		private final LongFunction<Neural.Builder<NeuralNetwork>> networkBuilderGenerator;
+		private final RandomGenerator random;
+		private final Optional<MoveFields> moveFields;
+		private final Optional<NetworksCache> networksCache;
+
+		/**
+		 * @param networkBuilderGenerator the builder of a network, which draws its
+		 *                                random signals from a stream seeded with the
+		 *                                given seed
+		 * @param random                  the source of the seeds, used in turn
+		 */
+		public Factory(LongFunction<Neural.Builder<NeuralNetwork>> networkBuilderGenerator, RandomGenerator random) {
+			this(networkBuilderGenerator, random, Optional.empty(), Optional.empty());
+		}
+
+		/**
+		 * @param moveFields the cache used by the agents with deterministic networks
+		 */
+		public Factory(LongFunction<Neural.Builder<NeuralNetwork>> networkBuilderGenerator, RandomGenerator random,
+				MoveFields moveFields) {
+			this(networkBuilderGenerator, random, Optional.of(moveFields), Optional.empty());
+		}
+
+		/**
+		 * @param moveFields    the cache used by the agents with deterministic
+		 *                      networks
+		 * @param networksCache the cache of the networks built from chromosomes
+		 */
+		public Factory(LongFunction<Neural.Builder<NeuralNetwork>> networkBuilderGenerator, RandomGenerator random,
+				MoveFields moveFields, NetworksCache networksCache) {
+			this(networkBuilderGenerator, random, Optional.of(moveFields), Optional.of(networksCache));
+		}
+
+		private Factory(LongFunction<Neural.Builder<NeuralNetwork>> networkBuilderGenerator, RandomGenerator random,
+				Optional<MoveFields> moveFields, Optional<NetworksCache> networksCache) {
 			this.networkBuilderGenerator = networkBuilderGenerator;
 			this.random = random;
+			this.moveFields = moveFields;
+			this.networksCache = networksCache;
+		}
+
+		public Optional<MoveFields> moveFields() {
+			return moveFields;
+		}
+
+		public Optional<NetworksCache> networksCache() {
+			return networksCache;
 		}
 
 		public NeuralNetwork moveToward(Position position) {
@@ -556,12 +959,59 @@ public interface NeuralNetwork {
 			return neuralNetwork;
 		}
 
+		/**
+		 * Draw the seed of the next network. Like the other methods drawing a seed,
+		 * it must be called in turn, not in parallel.
+		 */
+		public long nextSeed() {
+			return random.nextLong();
+		}
+
 		public NeuralNetwork execute(Program program) {
-			Neural.Builder<NeuralNetwork> builder = networkBuilderGenerator.get();
+			Neural.Builder<NeuralNetwork> builder = networkBuilderGenerator.apply(nextSeed());
 			program.executeOn(builder);
 			return builder.build();
 		}
 
+		/**
+		 * Same as executing the deserialized {@link Program}, but building the
+		 * network directly from the chromosome bytes. If a {@link NetworksCache} is
+		 * provided, a chromosome already built is not compiled again.
+		 */
+		public NeuralNetwork execute(Chromosome chromosome) {
+			return execute(chromosome, nextSeed());
+		}
+
+		/**
+		 * Same as {@link #execute(Chromosome)}, but with a seed drawn beforehand, for
+		 * instance with {@link #nextSeed()}. It does not draw anything from this
+		 * factory, so it can be called in parallel.
+		 */
+		public NeuralNetwork execute(Chromosome chromosome, long seed) {
+			return execute(chromosome, networkBuilderGenerator.apply(seed));
+		}
+
+		/**
+		 * Draw a seed now, to build a network later with
+		 * {@link #execute(Chromosome, long)}. Seeds being drawn in the order of the
+		 * calls, networks built in parallel get the same random sources than if they
+		 * were built in turn.
+		 * 
+		 * @return a function to call once, possibly from another thread
+		 */
+		public Function<Chromosome, NeuralNetwork> reserve() {
+			long seed = nextSeed();
+			return chromosome -> execute(chromosome, seed);
+		}
+
+		private NeuralNetwork execute(Chromosome chromosome, Neural.Builder<NeuralNetwork> builder) {
+			if (networksCache.isPresent() && builder instanceof NeuralNetwork.Builder networkBuilder) {
+				return networksCache.get().networkFor(chromosome, networkBuilder);
+			}
+			Program.executeOn(chromosome.bytes(), builder);
+			return builder.build();
+		}
+
 	}
 
 }
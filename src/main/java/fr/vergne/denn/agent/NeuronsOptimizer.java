@@ -0,0 +1,189 @@
+package fr.vergne.denn.agent;
+
+import static java.util.stream.Collectors.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.DotProductFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.FixedSignal;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.MaxFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.MinFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.RandomSignal;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.SumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.WeightedSumFunction;
+import fr.vergne.denn.agent.NeuralNetwork.NeuralFunction;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron.FunctionNeuron;
+
+/**
+ * Compile pass simplifying the built-in neurons, to be followed by
+ * {@link NeuronsPruner} to remove the neurons it makes useless. In index order,
+ * it:
+ * <ul>
+ * <li>folds neurons computing only on constants into a single constant,</li>
+ * <li>replaces zero-weight weighted sums by a zero constant,</li>
+ * <li>removes zero constants from the inputs of sums, but not of dot products
+ * since their weights follow the inputs order,</li>
+ * <li>merges neurons computing the same function on the same inputs.</li>
+ * </ul>
+ * Neurons are fired in index order, so a neuron reading a later neuron reads
+ * its signal from the previous fire, and a constant is 0 until it is first
+ * fired. A neuron is thus only considered constant for the later neurons, and
+ * merged neurons are only substituted for readers which cannot tell them apart.
+ * <p>
+ * Random and custom neurons are opaque: they are never folded nor merged.
+ * With {@link #optimizeForAnyWeights}, weighted sums and dot products are
+ * not simplified either, so the result holds whatever their weights.
+ * Replacing a zero-weight weighted sum is only exact when the sum of its
+ * inputs is finite, since 0 times an infinite sum is NaN. Finite inputs are
+ * not enough, like 1e308 + 1e308 which overflows. So it is only replaced when
+ * its inputs are bounded by {@link #BOUND}, which is assumed for the X/Y
+ * positions and the random signals, and holds for small enough constants and
+ * the min/max of bounded signals. Summing as many bounded signals as an array
+ * can hold cannot overflow.
+ */
+class NeuronsOptimizer {
+
+	private static final double BOUND = Integer.MAX_VALUE;
+
+	static record Optimization(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex,
+			int foldedNeuronsCount, int mergedNeuronsCount) {
+	}
+
+	private static record Signature(NeuralFunction function, List<Integer> inputIndexes) {
+	}
+
+	static Optimization optimize(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		return optimize(neuronsDefinitions, dXIndex, dYIndex, true);
+	}
+
+	/**
+	 * Same as {@link #optimize(List, int, int)}, but without relying on the
+	 * weights: replacing the weights of the weighted sums and dot products gives
+	 * the optimization of the new weights.
+	 */
+	static Optimization optimizeForAnyWeights(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		return optimize(neuronsDefinitions, dXIndex, dYIndex, false);
+	}
+
+	private static Optimization optimize(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex,
+			boolean canRelyOnWeights) {
+		NeuronDefinition[] definitions = neuronsDefinitions.toArray(NeuronDefinition[]::new);
+		int size = definitions.length;
+
+		boolean[] constant = new boolean[size];
+		double[] constantSignals = new double[size];
+		boolean[] bounded = new boolean[size];
+		int[] representatives = new int[size];
+		Map<Signature, Integer> firstIndexes = new HashMap<>();
+		int foldedNeuronsCount = 0;
+		int mergedNeuronsCount = 0;
+
+		List<NeuronDefinition> optimizedDefinitions = new ArrayList<>(size);
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			representatives[neuronIndex] = neuronIndex;
+			NeuronDefinition definition = definitions[neuronIndex];
+			if (neuronIndex < CompiledNetwork.Structure.INPUTS_COUNT) {
+				bounded[neuronIndex] = true;// Positions
+				optimizedDefinitions.add(definition);
+				continue;
+			}
+
+			int readerIndex = neuronIndex;
+			List<Integer> inputIndexes = definition.inputIndexes().stream()//
+					.map(inputIndex -> inputIndex < readerIndex ? representatives[inputIndex] : inputIndex)//
+					.collect(toList());
+
+			NeuralFunction function = builtInFunction(definition.neuron());
+			if (function == null) {
+				bounded[neuronIndex] = definition.neuron() instanceof FunctionNeuron functionNeuron
+						&& functionNeuron.function() instanceof RandomSignal;
+				optimizedDefinitions.add(new NeuronDefinition(definition.neuron(), inputIndexes));
+				continue;
+			}
+
+			if (function instanceof SumFunction || function instanceof WeightedSumFunction) {
+				inputIndexes.removeIf(inputIndex -> isAlwaysZero(inputIndex, constant, constantSignals));
+			}
+
+			boolean isWeightedKept = !canRelyOnWeights
+					&& (function instanceof WeightedSumFunction || function instanceof DotProductFunction);
+			boolean isFolded = false;
+			if (isWeightedKept) {
+				// Neither folded nor merged, since it depends on its weights
+			} else if (function instanceof FixedSignal fixedSignal) {
+				inputIndexes.clear();// Ignored anyway
+				constant[neuronIndex] = true;
+				constantSignals[neuronIndex] = fixedSignal.signal();
+			} else if (inputIndexes.stream().allMatch(inputIndex -> inputIndex < readerIndex && constant[inputIndex])) {
+				double[] inputSignals = inputIndexes.stream().mapToDouble(inputIndex -> constantSignals[inputIndex])
+						.toArray();
+				isFolded = true;
+				constant[neuronIndex] = true;
+				// Built-in functions compute like BASE, so same rounding
+				constantSignals[neuronIndex] = function.compute(inputSignals, 0, inputSignals.length);
+			} else if (function instanceof WeightedSumFunction weightedSum && weightedSum.weight() == 0
+					&& inputIndexes.stream().allMatch(inputIndex -> inputIndex < readerIndex && bounded[inputIndex])) {
+				isFolded = true;
+				constant[neuronIndex] = true;
+				constantSignals[neuronIndex] = 0;
+			}
+
+			if (constant[neuronIndex]) {
+				bounded[neuronIndex] = Math.abs(constantSignals[neuronIndex]) <= BOUND;
+			} else if (function instanceof MinFunction || function instanceof MaxFunction) {
+				bounded[neuronIndex] = inputIndexes.stream()
+						.allMatch(inputIndex -> inputIndex < readerIndex && bounded[inputIndex]);
+			}
+
+			if (isFolded) {
+				foldedNeuronsCount++;
+				function = Builder.fixedSignal(constantSignals[neuronIndex]);
+				inputIndexes = List.of();
+				optimizedDefinitions.add(new NeuronDefinition(Neuron.onInputsFunction(function), inputIndexes));
+			} else {
+				optimizedDefinitions.add(new NeuronDefinition(definition.neuron(), inputIndexes));
+			}
+
+			if (isWeightedKept) {
+				continue;
+			}
+			Signature signature = new Signature(function, inputIndexes);
+			Integer firstIndex = firstIndexes.putIfAbsent(signature, neuronIndex);
+			if (firstIndex != null && inputIndexes.stream()
+					.allMatch(inputIndex -> inputIndex < firstIndex || inputIndex >= readerIndex)) {
+				// Both read the same signals, so they have the same signal once both fired
+				representatives[neuronIndex] = firstIndex;
+				mergedNeuronsCount++;
+			}
+		}
+
+		return new Optimization(optimizedDefinitions, representatives[dXIndex], representatives[dYIndex],
+				foldedNeuronsCount, mergedNeuronsCount);
+	}
+
+	private static NeuralFunction builtInFunction(Neuron neuron) {
+		if (neuron instanceof FunctionNeuron functionNeuron) {
+			NeuralFunction function = functionNeuron.function();
+			if (function instanceof FixedSignal//
+					|| function instanceof SumFunction//
+					|| function instanceof WeightedSumFunction//
+					|| function instanceof DotProductFunction//
+					|| function instanceof MinFunction//
+					|| function instanceof MaxFunction) {
+				return function;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isAlwaysZero(int inputIndex, boolean[] constant, double[] constantSignals) {
+		// A zero constant is also zero before being fired, so the order does not matter
+		return constant[inputIndex] && constantSignals[inputIndex] == 0;
+	}
+}
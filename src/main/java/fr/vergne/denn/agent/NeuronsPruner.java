@@ -0,0 +1,66 @@
+package fr.vergne.denn.agent;
+
+import static java.util.stream.Collectors.*;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+
+/**
+ * Compile pass removing the neurons which have no impact on dX/dY. Starting
+ * from the dX and dY neurons, it walks backwards over the inputs of each neuron
+ * to find all the neurons they depend on, whatever their position. The X and Y
+ * neurons are always kept, and the kept neurons remain in the same relative
+ * order, so neurons reading later neurons still read their previous signal.
+ * <p>
+ * Pruned neurons are not fired at all, including random ones, which thus stop
+ * consuming their random source.
+ */
+class NeuronsPruner {
+
+	static record Pruning(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex,
+			int prunedNeuronsCount) {
+	}
+
+	static Pruning prune(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		NeuronDefinition[] definitions = neuronsDefinitions.toArray(NeuronDefinition[]::new);
+		int size = definitions.length;
+
+		boolean[] reachable = new boolean[size];
+		Deque<Integer> toVisit = new LinkedList<>();
+		for (int inputIndex = 0; inputIndex < CompiledNetwork.Structure.INPUTS_COUNT; inputIndex++) {
+			reachable[inputIndex] = true;// Fed by the network, not by their definition
+		}
+		toVisit.push(dXIndex);
+		toVisit.push(dYIndex);
+		while (!toVisit.isEmpty()) {
+			int neuronIndex = toVisit.pop();
+			if (!reachable[neuronIndex]) {
+				reachable[neuronIndex] = true;
+				definitions[neuronIndex].inputIndexes().forEach(toVisit::push);
+			}
+		}
+
+		int[] newIndexes = new int[size];
+		int keptCount = 0;
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			newIndexes[neuronIndex] = reachable[neuronIndex] ? keptCount++ : -1;
+		}
+
+		List<NeuronDefinition> prunedDefinitions = new ArrayList<>(keptCount);
+		for (int neuronIndex = 0; neuronIndex < size; neuronIndex++) {
+			if (reachable[neuronIndex]) {
+				NeuronDefinition definition = definitions[neuronIndex];
+				List<Integer> inputIndexes = neuronIndex < CompiledNetwork.Structure.INPUTS_COUNT //
+						? List.of()//
+						: definition.inputIndexes().stream().map(index -> newIndexes[index]).collect(toList());
+				prunedDefinitions.add(new NeuronDefinition(definition.neuron(), inputIndexes));
+			}
+		}
+
+		return new Pruning(prunedDefinitions, newIndexes[dXIndex], newIndexes[dYIndex], size - keptCount);
+	}
+}
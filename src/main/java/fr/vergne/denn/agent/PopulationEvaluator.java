@@ -0,0 +1,146 @@
+package fr.vergne.denn.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.CompiledNetwork.Structure.Topology;
+import fr.vergne.denn.agent.NeuralNetwork.AgentNetwork;
+import fr.vergne.denn.utils.Position;
+
+/**
+ * Decide the next positions of many {@link Agent}s at once. Agents are grouped
+ * by {@link Topology}, which is typically shared by the descendants of the same
+ * program mutated on their weights only. Each group is evaluated as a single
+ * matrix, with one row per neuron and one column per agent, so a neuron is
+ * computed for all the agents of the group in a single (vectorized) loop,
+ * weighted sums multiplying their inputs with the row of their weights.
+ * <p>
+ * Only feed-forward networks are grouped, since their signals do not depend on
+ * their previous fires. Networks tracking their own fires, like tiered ones
+ * counting them to be promoted, are not grouped either. These ones, as well as
+ * the ones with a unique topology, decide one by one, like the ones relying on
+ * {@link MoveFields}.
+ * Random sources are consumed in the order of the agents, so decisions are the
+ * same than if each agent was deciding in turn.
+ */
+public class PopulationEvaluator {
+
+	private final int minGroupSize;
+
+	public PopulationEvaluator() {
+		this(2);
+	}
+
+	/**
+	 * @param minGroupSize the minimal number of agents sharing a topology to
+	 *                     evaluate them as a group
+	 */
+	public PopulationEvaluator(int minGroupSize) {
+		if (minGroupSize < 2) {
+			throw new IllegalArgumentException("Groups must have at least 2 agents, currently " + minGroupSize);
+		}
+		this.minGroupSize = minGroupSize;
+	}
+
+	/**
+	 * Equivalent to calling {@link Agent#decideNextPosition(Position)} on each
+	 * agent, in order.
+	 *
+	 * @param agents    the agents to evaluate
+	 * @param positions the current position of each agent
+	 * @return the next position of each agent
+	 */
+	public List<Position> decideNextPositions(List<Agent> agents, List<Position> positions) {
+		int agentsCount = agents.size();
+		Structure[] structures = new Structure[agentsCount];
+		Map<Topology, Group> groups = new LinkedHashMap<>();
+		for (int agentIndex = 0; agentIndex < agentsCount; agentIndex++) {
+			Agent agent = agents.get(agentIndex);
+			// Agents on move fields rarely fire, so they do not need groups
+			if (!agent.decidesOnMoveField() && agent.neuralNetwork() instanceof StructuredNetwork network
+					&& network.isGroupable() && network.structure().isFeedForward) {
+				Structure structure = network.structure();
+				structures[agentIndex] = structure;
+				groups.computeIfAbsent(structure.topology(), topology -> new Group(structure)).members.add(agentIndex);
+			}
+		}
+
+		Group[] agentsGroup = new Group[agentsCount];
+		int[] agentsLane = new int[agentsCount];
+		for (Group group : groups.values()) {
+			if (group.members.size() >= minGroupSize) {
+				group.allocate();
+				int lane = 0;
+				for (int agentIndex : group.members) {
+					agentsGroup[agentIndex] = group;
+					agentsLane[agentIndex] = lane++;
+				}
+			}
+		}
+
+		Position[] nextPositions = new Position[agentsCount];
+		// Agents order, to consume random sources like agents deciding in turn
+		for (int agentIndex = 0; agentIndex < agentsCount; agentIndex++) {
+			Group group = agentsGroup[agentIndex];
+			if (group == null) {
+				nextPositions[agentIndex] = agents.get(agentIndex).decideNextPosition(positions.get(agentIndex));
+			} else {
+				group.load(agentsLane[agentIndex], structures[agentIndex], positions.get(agentIndex));
+			}
+		}
+
+		for (Group group : groups.values()) {
+			if (group.signals != null) {
+				group.fire();
+			}
+		}
+
+		for (int agentIndex = 0; agentIndex < agentsCount; agentIndex++) {
+			Group group = agentsGroup[agentIndex];
+			if (group != null) {
+				nextPositions[agentIndex] = positions.get(agentIndex).move(group.move(agentsLane[agentIndex]));
+			}
+		}
+
+		return Arrays.asList(nextPositions);
+	}
+
+	private static class Group {
+		private final Structure topology;
+		private final List<Integer> members = new ArrayList<>();
+		private double[] signals;
+		private double[] parameters;
+		private int count;
+
+		Group(Structure topology) {
+			this.topology = topology;
+		}
+
+		void allocate() {
+			count = members.size();
+			signals = new double[topology.size() * count];
+			parameters = new double[topology.laneParametersSize() * count];
+		}
+
+		void load(int lane, Structure structure, Position position) {
+			signals[Structure.X_INDEX * count + lane] = position.x();
+			signals[Structure.Y_INDEX * count + lane] = position.y();
+			structure.loadParameters(parameters, lane, count);
+		}
+
+		void fire() {
+			CompiledNetwork.fireLanes(topology, signals, parameters, count);
+		}
+
+		Position.Move move(int lane) {
+			return new Position.Move(//
+					AgentNetwork.toUnitaryMove(signals[topology.dXIndex * count + lane]), //
+					AgentNetwork.toUnitaryMove(signals[topology.dYIndex * count + lane])//
+			);
+		}
+	}
+}
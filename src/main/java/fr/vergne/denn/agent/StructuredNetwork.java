@@ -0,0 +1,20 @@
+package fr.vergne.denn.agent;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+
+/**
+ * {@link NeuralNetwork} built from a {@link Structure}, which can be used to
+ * evaluate it together with other networks of the same topology.
+ */
+interface StructuredNetwork extends NeuralNetwork {
+	Structure structure();
+
+	/**
+	 * @return <code>false</code> if the network must fire itself, because it
+	 *         tracks its own fires, so it cannot be evaluated from its
+	 *         {@link Structure} with other networks
+	 */
+	default boolean isGroupable() {
+		return true;
+	}
+}
@@ -0,0 +1,156 @@
+package fr.vergne.denn.agent;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.vergne.denn.Measure;
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+
+/**
+ * Tiered execution of {@link NeuralNetwork}s, similar to the JVM's own tiering.
+ * Each network starts on the cheap {@link CompiledNetwork} and counts its fires.
+ * Once it reaches the threshold, it is transparently replaced by its
+ * {@link BytecodeNetwork}, which costs more to build but less to fire. Agents
+ * dying early thus never pay for the expensive compilation.
+ * <p>
+ * The tiering properties can be observed with {@link Measure}:
+ *
+ * <pre>
+ * <code>
+ * Measure.of(Tiering::promotionsCount)
+ *     .feeding(count -> System.out.println("promotions = " + count))
+ *     .from(tiering);
+ * </code>
+ * </pre>
+ */
+public class Tiering implements BuildDefinition {
+
+	public static final Tiering DEFAULT = new Tiering(1000);
+
+	private final int threshold;
+	private final LongAdder networksCount = new LongAdder();
+	private final LongAdder promotionsCount = new LongAdder();
+
+	/**
+	 * @param threshold the number of fires after which a network is promoted
+	 */
+	public Tiering(int threshold) {
+		if (threshold < 1) {
+			throw new IllegalArgumentException("Threshold must be at least 1, currently " + threshold);
+		}
+		this.threshold = threshold;
+	}
+
+	/**
+	 * @return the number of fires after which a network is promoted
+	 */
+	public int threshold() {
+		return threshold;
+	}
+
+	/**
+	 * @return the number of networks built so far
+	 */
+	public long networksCount() {
+		return networksCount.sum();
+	}
+
+	/**
+	 * @return the number of networks promoted so far
+	 */
+	public long promotionsCount() {
+		return promotionsCount.sum();
+	}
+
+	@Override
+	public NeuralNetwork buildNetwork(List<NeuronDefinition> neuronsDefinitions, int dXIndex, int dYIndex) {
+		networksCount.increment();
+		return new TieredNetwork(CompiledNetwork.compileOptimized(neuronsDefinitions, dXIndex, dYIndex));
+	}
+
+	@Override
+	public String toString() {
+		return "Tiering[threshold=" + threshold + "]";
+	}
+
+	private class TieredNetwork implements StructuredNetwork {
+		private final CompiledNetwork interpreted;
+		private NeuralNetwork current;
+		private int remainingFires = threshold;
+		private double x = 0;
+		private double y = 0;
+
+		TieredNetwork(Structure structure) {
+			this.interpreted = structure.instantiate();
+			this.current = interpreted;
+		}
+
+		@Override
+		public Structure structure() {
+			return interpreted.structure();
+		}
+
+		@Override
+		public boolean isGroupable() {
+			return false;// Counts its fires to be promoted
+		}
+
+		@Override
+		public void setXSignal(double x) {
+			this.x = x;
+			current.setXSignal(x);
+		}
+
+		@Override
+		public void setYSignal(double y) {
+			this.y = y;
+			current.setYSignal(y);
+		}
+
+		@Override
+		public void fire() {
+			current.fire();
+			if (remainingFires > 0 && --remainingFires == 0) {
+				promote();
+			}
+		}
+
+		@Override
+		public void fireBatch(double[] xs, double[] ys, double[] dxOut, double[] dyOut, int count) {
+			current.fireBatch(xs, ys, dxOut, dyOut, count);
+			if (count > 0) {
+				x = xs[count - 1];
+				y = ys[count - 1];
+			}
+			if (remainingFires > 0) {
+				remainingFires -= Math.min(count, remainingFires);
+				if (remainingFires == 0) {
+					promote();
+				}
+			}
+		}
+
+		private void promote() {
+			NeuralNetwork optimized = BytecodeNetwork.generate(interpreted.structure());
+			if (optimized instanceof BytecodeNetwork generated) {
+				generated.loadSignals(interpreted.signals());
+				generated.setXSignal(x);
+				generated.setYSignal(y);
+				current = generated;
+				promotionsCount.increment();
+			}
+		}
+
+		@Override
+		public double dXSignal() {
+			return current.dXSignal();
+		}
+
+		@Override
+		public double dYSignal() {
+			return current.dYSignal();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package fr.vergne.denn.agent;
+
+import java.util.Optional;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BatchKernel} processing as many samples as the CPU lanes allow at
+ * once. The remaining samples, less than a lane width, are processed in scalar
+ * code. Lane-wise operations follow the same IEEE semantics than their scalar
+ * counterparts, so both kernels compute the same values.
+ * <p>
+ * This class relies on the <code>jdk.incubator.vector</code> module, so it
+ * should be loaded only through {@link BatchKernel#DEFAULT}, which checks its
+ * availability.
+ */
+class VectorBatchKernel implements BatchKernel {
+
+	private final VectorSpecies<Double> species;
+
+	private VectorBatchKernel(VectorSpecies<Double> species) {
+		this.species = species;
+	}
+
+	/**
+	 * @return the kernel, unless the CPU has no lane to process several doubles
+	 *         at once
+	 */
+	static Optional<BatchKernel> create() {
+		VectorSpecies<Double> species = DoubleVector.SPECIES_PREFERRED;
+		return species.length() < 2 ? Optional.empty() : Optional.of(new VectorBatchKernel(species));
+	}
+
+	@Override
+	public void add(double[] signals, int targetStart, int sourceStart, int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			DoubleVector source = DoubleVector.fromArray(species, signals, sourceStart + i);
+			target.add(source).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] += signals[sourceStart + i];
+		}
+	}
+
+	@Override
+	public void multiply(double[] signals, int targetStart, double factor, int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			target.mul(factor).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] *= factor;
+		}
+	}
+
+	@Override
+	public void multiply(double[] signals, int targetStart, double[] factors, int factorsStart, int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			DoubleVector factor = DoubleVector.fromArray(species, factors, factorsStart + i);
+			target.mul(factor).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] *= factors[factorsStart + i];
+		}
+	}
+
+	@Override
+	public void addProduct(double[] signals, int targetStart, int sourceStart, double[] factors, int factorsStart,
+			int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			DoubleVector source = DoubleVector.fromArray(species, signals, sourceStart + i);
+			DoubleVector factor = DoubleVector.fromArray(species, factors, factorsStart + i);
+			target.add(source.mul(factor)).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] += signals[sourceStart + i] * factors[factorsStart + i];
+		}
+	}
+
+	@Override
+	public void min(double[] signals, int targetStart, int sourceStart, int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			DoubleVector source = DoubleVector.fromArray(species, signals, sourceStart + i);
+			target.min(source).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] = Math.min(signals[targetStart + i], signals[sourceStart + i]);
+		}
+	}
+
+	@Override
+	public void max(double[] signals, int targetStart, int sourceStart, int count) {
+		int i = 0;
+		for (int bound = species.loopBound(count); i < bound; i += species.length()) {
+			DoubleVector target = DoubleVector.fromArray(species, signals, targetStart + i);
+			DoubleVector source = DoubleVector.fromArray(species, signals, sourceStart + i);
+			target.max(source).intoArray(signals, targetStart + i);
+		}
+		for (; i < count; i++) {
+			signals[targetStart + i] = Math.max(signals[targetStart + i], signals[sourceStart + i]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Vector[" + species + "]";
+	}
+}
@@ -0,0 +1,190 @@
+package fr.vergne.denn.agent;
+
+import static fr.vergne.denn.agent.adn.Operation.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuronsOptimizer.Optimization;
+import fr.vergne.denn.agent.NeuronsPruner.Pruning;
+import fr.vergne.denn.agent.adn.Code;
+import fr.vergne.denn.agent.adn.Operation;
+import fr.vergne.denn.agent.adn.ProgramView;
+
+/**
+ * {@link Structure} of a chromosome which holds for any weights. Chromosomes
+ * only differing by the values of their weights have the same
+ * {@link #fingerprint(byte[])}, so the {@link Structure} of one can be reused
+ * for the others by patching their weights in, rather than building them from
+ * scratch.
+ * <p>
+ * For that, the {@link Structure} is optimized with
+ * {@link NeuronsOptimizer#optimizeForAnyWeights}: weighted sums and dot
+ * products are never folded nor merged, which would depend on their weights.
+ * Each weight code of the chromosome is then associated to the parameter it
+ * sets in the {@link Structure}, if it was not pruned.
+ */
+class WeightsTemplate {
+
+	private final Structure structure;
+	private final int[] codeIndexes;
+	/**
+	 * For each code of {@link #codeIndexes}, the index of its weight in
+	 * {@link Structure#parameters}, or in {@link Structure#inputParameters} once
+	 * shifted by the size of the {@link Structure}.
+	 */
+	private final int[] slots;
+
+	private WeightsTemplate(Structure structure, int[] codeIndexes, int[] slots) {
+		this.structure = structure;
+		this.codeIndexes = codeIndexes;
+		this.slots = slots;
+	}
+
+	/**
+	 * @return the codes of the chromosome, with the values of their weights
+	 *         replaced by zero
+	 */
+	static ChromosomeKey fingerprint(byte[] bytes) {
+		ProgramView program = ProgramView.of(bytes);
+		ByteBuffer buffer = ByteBuffer.allocate(program.codesCount() * Code.SIZE);
+		program.accept((codeIndex, operation, value) -> {
+			buffer.put((byte) operation.ordinal());
+			buffer.putDouble(isWeight(operation) ? 0 : value);
+		});
+		return new ChromosomeKey(buffer.array());
+	}
+
+	private static boolean isWeight(Operation operation) {
+		return operation == CREATE_WITH_WEIGHTED_SUM_FUNCTION || operation == CREATE_WITH_DOT_PRODUCT_FUNCTION
+				|| operation == WEIGHT;
+	}
+
+	/**
+	 * @param bytes   the chromosome executed by the builder
+	 * @param builder the builder having executed the chromosome
+	 */
+	static WeightsTemplate compile(byte[] bytes, NeuralNetwork.Builder builder) {
+		List<NeuronDefinition> definitions = builder.neuronsDefinitions();
+		Optimization optimization = NeuronsOptimizer.optimizeForAnyWeights(definitions, builder.dXIndex(),
+				builder.dYIndex());
+		Pruning pruning = NeuronsPruner.prune(optimization.neuronsDefinitions(), optimization.dXIndex(),
+				optimization.dYIndex());
+		List<NeuronDefinition> prunedDefinitions = pruning.neuronsDefinitions();
+		Structure structure = Structure.compile(prunedDefinitions, pruning.dXIndex(), pruning.dYIndex(),
+				pruning.prunedNeuronsCount());
+
+		// Weighted neurons are kept as is, so their neuron tells their new index
+		Map<Object, Integer> structureIndexes = new IdentityHashMap<>();
+		for (int index = 0; index < prunedDefinitions.size(); index++) {
+			structureIndexes.put(prunedDefinitions.get(index).neuron(), index);
+		}
+
+		ProgramView program = ProgramView.of(bytes);
+		int[] codeIndexes = new int[program.codesCount()];
+		int[] slots = new int[program.codesCount()];
+		int slotsCount = 0;
+		int neuronIndex = Structure.INPUTS_COUNT - 1;
+		int weightPosition = -1;// Position in the current dot product, if any
+		for (int codeIndex = 0; codeIndex < program.codesCount(); codeIndex++) {
+			Operation operation = program.operation(codeIndex);
+			if (operation == WEIGHT) {
+				if (weightPosition < 0) {
+					continue;
+				}
+				weightPosition++;
+			} else {
+				weightPosition = -1;
+				if (isNeuronCreation(operation)) {
+					neuronIndex++;
+				}
+				if (operation == CREATE_WITH_DOT_PRODUCT_FUNCTION) {
+					weightPosition = 0;
+				} else if (operation != CREATE_WITH_WEIGHTED_SUM_FUNCTION) {
+					continue;
+				}
+			}
+
+			Integer structureIndex = structureIndexes.get(definitions.get(neuronIndex).neuron());
+			if (structureIndex == null) {
+				continue;// Pruned
+			}
+			int slot;
+			if (weightPosition < 0) {
+				checkOperation(structure, structureIndex, Structure.WEIGHTED_SUM);
+				slot = structureIndex;
+			} else {
+				checkOperation(structure, structureIndex, Structure.DOT);
+				int inputPosition = structure.inputsStart[structureIndex] + weightPosition;
+				if (inputPosition >= structure.inputsStart[structureIndex + 1]) {
+					continue;// Weight without input
+				}
+				slot = structure.size() + inputPosition;
+			}
+			codeIndexes[slotsCount] = codeIndex;
+			slots[slotsCount] = slot;
+			slotsCount++;
+		}
+		return new WeightsTemplate(structure, //
+				Arrays.copyOf(codeIndexes, slotsCount), //
+				Arrays.copyOf(slots, slotsCount));
+	}
+
+	private static boolean isNeuronCreation(Operation operation) {
+		switch (operation) {
+		case CREATE_WITH_FIXED_SIGNAL:
+		case CREATE_WITH_WEIGHTED_SUM_FUNCTION:
+		case CREATE_WITH_SUM_FUNCTION:
+		case CREATE_WITH_MIN_FUNCTION:
+		case CREATE_WITH_MAX_FUNCTION:
+		case CREATE_WITH_RANDOM_SIGNAL:
+		case CREATE_WITH_DOT_PRODUCT_FUNCTION:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static void checkOperation(Structure structure, int neuronIndex, byte operation) {
+		if (structure.operations[neuronIndex] != operation) {
+			throw new IllegalStateException("Neuron " + neuronIndex + " should have operation " + operation
+					+ " but has " + structure.operations[neuronIndex]);
+		}
+	}
+
+	Structure structure() {
+		return structure;
+	}
+
+	int weightsCount() {
+		return slots.length;
+	}
+
+	/**
+	 * @param bytes a chromosome with the same {@link #fingerprint(byte[])} than
+	 *              the one of this template
+	 * @return the {@link Structure} of the chromosome, sharing its operations and
+	 *         connections with this template
+	 */
+	Structure patch(byte[] bytes) {
+		double[] parameters = structure.parameters.clone();
+		double[] inputParameters = structure.inputParameters.clone();
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		int size = structure.size();
+		for (int i = 0; i < slots.length; i++) {
+			double weight = buffer.getDouble(codeIndexes[i] * Code.SIZE + 1);
+			int slot = slots[i];
+			if (slot < size) {
+				parameters[slot] = weight;
+			} else {
+				inputParameters[slot - size] = weight;
+			}
+		}
+		return structure.withParameters(parameters, inputParameters);
+	}
+}
@@ -0,0 +1,59 @@
+package fr.vergne.denn.agent.adn;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Flip each bit with the same probability, independently from the others.
+ * Rather than drawing a number per bit, it draws the number of bits to skip
+ * before the next flip, which follows a geometric distribution. The cost is
+ * then proportional to the number of flips, not to the number of bits.
+ * <p>
+ * Successive ranges are considered as a single sequence of bits, so the
+ * remaining gap carries over from one range to the next.
+ */
+class BitFlipper {
+
+	private final RandomGenerator random;
+	private final double probabilityPerBit;
+	private final double logComplement;
+	private long gap;
+
+	BitFlipper(RandomGenerator random, double probabilityPerBit) {
+		this.random = random;
+		this.probabilityPerBit = probabilityPerBit;
+		this.logComplement = Math.log1p(-probabilityPerBit);
+		this.gap = nextGap();
+	}
+
+	/**
+	 * Flip the bits of the bytes in place, from the byte <code>from</code>
+	 * inclusive to the byte <code>to</code> exclusive. Bits are numbered like in
+	 * {@link java.util.BitSet#valueOf(byte[])}.
+	 */
+	void flip(byte[] bytes, int from, int to) {
+		long bitIndex = (long) from * Byte.SIZE;
+		long end = (long) to * Byte.SIZE;
+		while (end - bitIndex > gap) {
+			bitIndex += gap;
+			bytes[(int) (bitIndex >>> 3)] ^= 1 << (bitIndex & 7);
+			bitIndex++;
+			gap = nextGap();
+		}
+		gap -= end - bitIndex;
+	}
+
+	/**
+	 * @return the number of bits to keep before flipping one, such that
+	 *         <code>P(gap = k) = (1 - p)^k * p</code>
+	 */
+	private long nextGap() {
+		if (probabilityPerBit <= 0) {
+			return Long.MAX_VALUE;
+		}
+		if (probabilityPerBit >= 1) {
+			return 0;
+		}
+		double uniform = 1 - random.nextDouble();// In (0;1], so its log is finite
+		return (long) (Math.log(uniform) / logComplement);
+	}
+}
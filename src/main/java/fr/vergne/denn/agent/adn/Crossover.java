@@ -0,0 +1,56 @@
+package fr.vergne.denn.agent.adn;
+
+import static java.lang.Math.*;
+
+/**
+ * Child chromosome built from segments of codes of its parents, copied from
+ * their bytes. Parents are aligned on their last codes, so the child has as
+ * many codes as the longest parent. Its first codes, which the shortest parent
+ * does not have, come from the longest parent, whatever the parent chosen for
+ * them.
+ */
+class Crossover {
+
+	private final ProgramView parent1;
+	private final ProgramView parent2;
+	private final ProgramView longest;
+	private final int codesCount;
+	private final byte[] bytes;
+
+	Crossover(Chromosome chromosome1, Chromosome chromosome2) {
+		this.parent1 = ProgramView.of(chromosome1);
+		this.parent2 = ProgramView.of(chromosome2);
+		this.longest = parent1.codesCount() < parent2.codesCount() ? parent2 : parent1;
+		this.codesCount = longest.codesCount();
+		this.bytes = new byte[codesCount * Code.SIZE];
+	}
+
+	int codesCount() {
+		return codesCount;
+	}
+
+	/**
+	 * Copy the codes of a parent to the same positions in the child, from the code
+	 * <code>from</code> inclusive to the code <code>to</code> exclusive.
+	 */
+	void copy(boolean isFromParent1, int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		ProgramView parent = isFromParent1 ? parent1 : parent2;
+		int shift = codesCount - parent.codesCount();
+		int split = max(from, min(to, shift));
+		copy(longest, from, split, 0);
+		copy(parent, split, to, shift);
+	}
+
+	private void copy(ProgramView parent, int from, int to, int shift) {
+		if (from < to) {
+			System.arraycopy(parent.bytes, (from - shift) * Code.SIZE, bytes, from * Code.SIZE, (to - from) * Code.SIZE);
+		}
+	}
+
+	Chromosome child() {
+		return new Chromosome(bytes);
+	}
+}
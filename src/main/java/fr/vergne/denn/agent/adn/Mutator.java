@@ -1,13 +1,6 @@
 package fr.vergne.denn.agent.adn;
 
-import static java.util.stream.Collectors.*;
-
-import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.List;
-import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.random.RandomGenerator;
 
 @FunctionalInterface
 public interface Mutator {
@@ -18,41 +11,35 @@ public interface Mutator {
 		return chromosomeChild -> chromosomeChild;
 	}
 
-	static Mutator onBits(Random random, double probabilityPerBit) {
+	static Mutator onBits(RandomGenerator random, double probabilityPerBit) {
 		return chromosome -> new Chromosome(mutateBits(chromosome.bytes(), random, probabilityPerBit));
 	}
 
-	static Mutator onWeights(Random random, double probabilityPerBit) {
+	/**
+	 * Flip the bits of the weights only, with the same probability per bit than
+	 * {@link #onBits(RandomGenerator, double)}. The other codes are not read
+	 * beyond their operation.
+	 */
+	static Mutator onWeights(RandomGenerator random, double probabilityPerBit) {
 		return chromosome -> {
-			byte[] bytes = chromosome.bytes();
-			Program program = Program.deserialize(bytes);
-			List<Code> mutatedCodes = program.codes().stream()//
-					.map(code -> {
-						if (!code.operation().equals(Operation.CREATE_WITH_WEIGHTED_SUM_FUNCTION)) {
-							return code;
-						}
-						
-						ByteBuffer weightBuffer = ByteBuffer.allocate(Double.BYTES);
-						Double weight = code.value();
-						byte[] weightBytes = weightBuffer.putDouble(weight).flip().array();
-						byte[] mutatedBytes = mutateBits(weightBytes, random, probabilityPerBit);
-						double mutatedWeight = weightBuffer.put(mutatedBytes).flip().getDouble();
-						return new Code(code.operation(), mutatedWeight);
-					})//
-					.collect(toList());
-			byte[] mutatedBytes = new Program(mutatedCodes).serialize();
-
-			return new Chromosome(mutatedBytes);
+			ProgramView.Writable program = ProgramView.of(chromosome).copy();
+			BitFlipper flipper = new BitFlipper(random, probabilityPerBit);
+			for (int codeIndex = 0; codeIndex < program.codesCount(); codeIndex++) {
+				Operation operation = program.operation(codeIndex);
+				if (operation == Operation.CREATE_WITH_WEIGHTED_SUM_FUNCTION//
+						|| operation == Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION//
+						|| operation == Operation.WEIGHT) {
+					int valueOffset = program.offset(codeIndex) + 1;
+					flipper.flip(program.bytes, valueOffset, valueOffset + Double.BYTES);
+				}
+			}
+			return program.toChromosome();
 		};
 	}
 
-	static byte[] mutateBits(byte[] bytes, Random random, double probabilityPerBit) {
-		BitSet bitSet = BitSet.valueOf(bytes);
-		IntStream.range(0, bytes.length * Byte.SIZE).forEach(index -> {
-			if (random.nextDouble() < probabilityPerBit) {
-				bitSet.flip(index);
-			}
-		});
-		return Arrays.copyOf(bitSet.toByteArray(), bytes.length);
+	static byte[] mutateBits(byte[] bytes, RandomGenerator random, double probabilityPerBit) {
+		byte[] mutatedBytes = bytes.clone();
+		new BitFlipper(random, probabilityPerBit).flip(mutatedBytes, 0, mutatedBytes.length);
+		return mutatedBytes;
 	}
 }
@@ -3,7 +3,6 @@ package fr.vergne.denn.agent.adn;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.function.Function;
-import java.util.stream.Stream;
 
 import fr.vergne.denn.agent.NeuralNetwork.Builder.BuilderStep;
 
@@ -17,9 +16,25 @@ public enum Operation {
 	MOVE_TO(signal -> builder -> builder.moveTo(signal.intValue())), //
 	READ_SIGNAL_FROM(signal -> builder -> builder.readSignalFrom(signal.intValue())), //
 	SET_DX(index -> builder -> builder.setDXAt(index.intValue())), //
-	SET_DY(index -> builder -> builder.setDYAt(index.intValue())),//
+	SET_DY(index -> builder -> builder.setDYAt(index.intValue())), //
+	/**
+	 * Carries the first weight, the next ones being carried by the {@link #WEIGHT}
+	 * codes following it. See {@link Program#executeOn}.
+	 */
+	CREATE_WITH_DOT_PRODUCT_FUNCTION(weight -> builder -> builder.createNeuronWithDotProductFunction(weight)), //
+	/**
+	 * Ignored unless it follows a dot product.
+	 */
+	WEIGHT(weight -> builder -> {}),//
 	;
 
+	private static final Operation[] VALUES = values();// Indexed by serialized operation
+	/**
+	 * Operations before the dot products. Any byte decoded into one of them
+	 * before keeps doing so, apart from the bytes reserved for the later ones.
+	 */
+	private static final int LEGACY_COUNT = SET_DY.ordinal() + 1;
+
 	private final Function<Double, BuilderStep> resolver;
 
 	private Operation(Function<Double, BuilderStep> resolver) {
@@ -36,10 +51,19 @@ public enum Operation {
 	}
 
 	public static Optional<Operation> deserialize(byte bits) {
-		int normalizedBits = ((bits % values().length) + values().length) % values().length;
-		return Stream.of(Operation.values())//
-				.filter(op -> op.serialize() == normalizedBits)//
-				.findAny();
+		return Optional.of(decode(bits));
+	}
+
+	/**
+	 * Same as {@link #deserialize(byte)}, without searching nor allocating. The
+	 * operations added after {@link #SET_DY} only have their serialized byte, so
+	 * the other bytes decode like before them.
+	 */
+	static Operation decode(byte bits) {
+		if (bits >= LEGACY_COUNT && bits < VALUES.length) {
+			return VALUES[bits];
+		}
+		return VALUES[Math.floorMod(bits, LEGACY_COUNT)];
 	}
 
 }
@@ -4,6 +4,7 @@ import static java.util.Collections.*;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.UnaryOperator;
@@ -15,8 +16,105 @@ import fr.vergne.denn.utils.Position;
 
 public record Program(List<Code> codes) {
 
+	/**
+	 * Apply each code on the builder. A dot product takes its weights from its own
+	 * code and the {@link Operation#WEIGHT} codes following it, so its weights
+	 * do not need their own neurons.
+	 */
 	public void executeOn(Neural.Builder<?> builder) {
-		this.codes.stream().map(Code::resolve).forEach(step -> step.apply(builder));
+		List<Double> dotProductWeights = null;
+		for (Code code : codes) {
+			if (dotProductWeights != null) {
+				if (code.operation() == Operation.WEIGHT) {
+					dotProductWeights.add(code.value());
+					continue;
+				}
+				builder.createNeuronWithDotProductFunction(toArray(dotProductWeights));
+				dotProductWeights = null;
+			}
+			if (code.operation() == Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION) {
+				dotProductWeights = new ArrayList<>();
+				dotProductWeights.add(code.value());
+			} else {
+				code.resolve().apply(builder);
+			}
+		}
+		if (dotProductWeights != null) {
+			builder.createNeuronWithDotProductFunction(toArray(dotProductWeights));
+		}
+	}
+
+	/**
+	 * Same as {@link #deserialize(byte[])} followed by
+	 * {@link #executeOn(Neural.Builder)}, but in a single pass over the bytes,
+	 * without creating any {@link Code} nor boxing their values.
+	 */
+	public static void executeOn(byte[] bytes, Neural.Builder<?> builder) {
+		ByteBuffer readBuffer = ByteBuffer.wrap(bytes);
+		int codesCount = bytes.length / Code.SIZE;
+		double[] dotProductWeights = new double[8];
+		int dotProductWeightsCount = -1;// No pending dot product
+		for (int codeIndex = 0; codeIndex < codesCount; codeIndex++) {
+			int offset = codeIndex * Code.SIZE;
+			Operation operation = Operation.decode(bytes[offset]);
+			double value = readBuffer.getDouble(offset + 1);
+			if (dotProductWeightsCount >= 0) {
+				if (operation == Operation.WEIGHT) {
+					if (dotProductWeightsCount == dotProductWeights.length) {
+						dotProductWeights = Arrays.copyOf(dotProductWeights, 2 * dotProductWeightsCount);
+					}
+					dotProductWeights[dotProductWeightsCount++] = value;
+					continue;
+				}
+				builder.createNeuronWithDotProductFunction(Arrays.copyOf(dotProductWeights, dotProductWeightsCount));
+				dotProductWeightsCount = -1;
+			}
+			switch (operation) {
+			case CREATE_WITH_FIXED_SIGNAL:
+				builder.createNeuronWithFixedSignal(value);
+				break;
+			case CREATE_WITH_WEIGHTED_SUM_FUNCTION:
+				builder.createNeuronWithWeightedSumFunction(value);
+				break;
+			case CREATE_WITH_SUM_FUNCTION:
+				builder.createNeuronWithSumFunction();
+				break;
+			case CREATE_WITH_MIN_FUNCTION:
+				builder.createNeuronWithMinFunction();
+				break;
+			case CREATE_WITH_MAX_FUNCTION:
+				builder.createNeuronWithMaxFunction();
+				break;
+			case CREATE_WITH_RANDOM_SIGNAL:
+				builder.createNeuronWithRandomSignal();
+				break;
+			case MOVE_TO:
+				builder.moveTo((int) value);
+				break;
+			case READ_SIGNAL_FROM:
+				builder.readSignalFrom((int) value);
+				break;
+			case SET_DX:
+				builder.setDXAt((int) value);
+				break;
+			case SET_DY:
+				builder.setDYAt((int) value);
+				break;
+			case CREATE_WITH_DOT_PRODUCT_FUNCTION:
+				dotProductWeights[0] = value;
+				dotProductWeightsCount = 1;
+				break;
+			case WEIGHT:
+				break;// Ignored out of a dot product
+			}
+		}
+		if (dotProductWeightsCount >= 0) {
+			builder.createNeuronWithDotProductFunction(Arrays.copyOf(dotProductWeights, dotProductWeightsCount));
+		}
+	}
+
+	private static double[] toArray(List<Double> weights) {
+		return weights.stream().mapToDouble(Double::doubleValue).toArray();
 	}
 
 	public byte[] serialize() {
@@ -57,6 +155,22 @@ public record Program(List<Code> codes) {
 			return this;
 		}
 
+		/**
+		 * @throws IllegalArgumentException if no weight is provided, since the first
+		 *                                  weight is carried by the neuron code
+		 */
+		@Override
+		public Builder createNeuronWithDotProductFunction(double... weights) {
+			if (weights.length == 0) {
+				throw new IllegalArgumentException("At least one weight is required");
+			}
+			codes.add(new Code(Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION, weights[0]));
+			for (int i = 1; i < weights.length; i++) {
+				codes.add(new Code(Operation.WEIGHT, weights[i]));
+			}
+			return this;
+		}
+
 		@Override
 		public Builder createNeuronWithSumFunction() {
 			codes.add(new Code(Operation.CREATE_WITH_SUM_FUNCTION, 0.0));
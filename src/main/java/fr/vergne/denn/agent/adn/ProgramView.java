@@ -0,0 +1,148 @@
+package fr.vergne.denn.agent.adn;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only {@link Program} over the bytes of a chromosome, without copying
+ * them. Each code is read on demand at <code>codeIndex * Code.SIZE</code>: its
+ * operation byte followed by its value. Nothing is allocated per code, so
+ * inspecting a few codes does not cost the whole genome like
+ * {@link Program#deserialize(byte[])}. Trailing bytes too short for a code are
+ * ignored, like when deserializing.
+ * <p>
+ * Two views are equal if they describe the same {@link Program}, even if their
+ * bytes differ on ignored bits. Use {@link #copy()} to edit a chromosome
+ * through a {@link Writable} view.
+ */
+public class ProgramView {
+
+	final byte[] bytes;
+	final ByteBuffer buffer;
+	private final int codesCount;
+
+	ProgramView(byte[] bytes) {
+		this.bytes = bytes;
+		this.buffer = ByteBuffer.wrap(bytes);
+		this.codesCount = bytes.length / Code.SIZE;
+	}
+
+	public static ProgramView of(Chromosome chromosome) {
+		return of(chromosome.bytes());
+	}
+
+	public static ProgramView of(byte[] bytes) {
+		return new ProgramView(bytes);
+	}
+
+	public int codesCount() {
+		return codesCount;
+	}
+
+	public Operation operation(int codeIndex) {
+		return Operation.decode(bytes[offset(codeIndex)]);
+	}
+
+	public double value(int codeIndex) {
+		return buffer.getDouble(offset(codeIndex) + 1);
+	}
+
+	public Code code(int codeIndex) {
+		return new Code(operation(codeIndex), value(codeIndex));
+	}
+
+	int offset(int codeIndex) {
+		if (codeIndex < 0 || codeIndex >= codesCount) {
+			throw new IndexOutOfBoundsException("No code " + codeIndex + " among " + codesCount);
+		}
+		return codeIndex * Code.SIZE;
+	}
+
+	@FunctionalInterface
+	public static interface Visitor {
+		void visit(int codeIndex, Operation operation, double value);
+	}
+
+	/**
+	 * Visit each code in order, without creating them.
+	 */
+	public void accept(Visitor visitor) {
+		for (int codeIndex = 0; codeIndex < codesCount; codeIndex++) {
+			int offset = codeIndex * Code.SIZE;
+			visitor.visit(codeIndex, Operation.decode(bytes[offset]), buffer.getDouble(offset + 1));
+		}
+	}
+
+	public Program toProgram() {
+		List<Code> codes = new ArrayList<>(codesCount);
+		accept((codeIndex, operation, value) -> codes.add(new Code(operation, value)));
+		return new Program(codes);
+	}
+
+	/**
+	 * @return a {@link Writable} view over a copy of the bytes, so the chromosome
+	 *         of this view remains unchanged
+	 */
+	public Writable copy() {
+		return new Writable(bytes.clone());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof ProgramView view) || view.codesCount != codesCount) {
+			return false;
+		}
+		for (int codeIndex = 0; codeIndex < codesCount; codeIndex++) {
+			int offset = codeIndex * Code.SIZE;
+			if (Operation.decode(bytes[offset]) != Operation.decode(view.bytes[offset])
+					|| buffer.getLong(offset + 1) != view.buffer.getLong(offset + 1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int codeIndex = 0; codeIndex < codesCount; codeIndex++) {
+			int offset = codeIndex * Code.SIZE;
+			hash = 31 * hash + Operation.decode(bytes[offset]).ordinal();
+			hash = 31 * hash + Long.hashCode(buffer.getLong(offset + 1));
+		}
+		return hash;
+	}
+
+	/**
+	 * {@link ProgramView} editing its own bytes in place. Only the edited codes are
+	 * written, the others keep their bytes as is.
+	 */
+	public static class Writable extends ProgramView {
+
+		Writable(byte[] bytes) {
+			super(bytes);
+		}
+
+		public Writable setOperation(int codeIndex, Operation operation) {
+			bytes[offset(codeIndex)] = operation.serialize();
+			return this;
+		}
+
+		public Writable setValue(int codeIndex, double value) {
+			buffer.putDouble(offset(codeIndex) + 1, value);
+			return this;
+		}
+
+		/**
+		 * @return the chromosome of the edited bytes, which should not be edited
+		 *         anymore through this view
+		 */
+		public Chromosome toChromosome() {
+			return new Chromosome(bytes);
+		}
+	}
+}
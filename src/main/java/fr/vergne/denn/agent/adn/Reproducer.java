@@ -1,8 +1,8 @@
 package fr.vergne.denn.agent.adn;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
+import static java.lang.Math.*;
+
+import java.util.random.RandomGenerator;
 
 @FunctionalInterface
 public interface Reproducer {
@@ -13,40 +13,74 @@ public interface Reproducer {
 		return (chromosome1, chromosome2) -> chromosome1;
 	}
 
-	static Reproducer onRandomParent(Random random) {
+	static Reproducer onRandomParent(RandomGenerator random) {
 		return (chromosome1, chromosome2) -> random.nextBoolean() ? chromosome1 : chromosome2;
 	}
 
-	static Reproducer onRandomCodes(Random random) {
+	/**
+	 * Pick each code of the child from a random parent (uniform crossover). Parents
+	 * are aligned on their last codes, the first codes of the longest one being
+	 * inherited anyway. The parents of 64 codes are picked from a single random
+	 * number, and successive codes of the same parent are copied at once.
+	 */
+	static Reproducer onRandomCodes(RandomGenerator random) {
 		return (chromosome1, chromosome2) -> {
-			byte[] bytes1 = chromosome1.bytes();
-			byte[] bytes2 = chromosome2.bytes();
-
-			List<Code> codes1 = Program.deserialize(bytes1).codes();
-			List<Code> codes2 = Program.deserialize(bytes2).codes();
-
-			if (codes1.size() < codes2.size()) {
-				List<Code> subList = codes2.subList(0, codes2.size() - codes1.size());
-				codes1.addAll(0, subList);
-			} else if (codes1.size() > codes2.size()) {
-				List<Code> subList = codes1.subList(0, codes1.size() - codes2.size());
-				codes2.addAll(0, subList);
+			Crossover crossover = new Crossover(chromosome1, chromosome2);
+			int codesCount = crossover.codesCount();
+			for (int blockStart = 0; blockStart < codesCount; blockStart += Long.SIZE) {
+				long parents1Mask = random.nextLong();// Bit set for codes of the first parent
+				int blockEnd = min(codesCount, blockStart + Long.SIZE);
+				int from = blockStart;
+				while (from < blockEnd) {
+					long remainingMask = parents1Mask >>> (from - blockStart);
+					boolean isFromParent1 = (remainingMask & 1) != 0;
+					int runLength = Long.numberOfTrailingZeros(isFromParent1 ? ~remainingMask : remainingMask);
+					int to = min(blockEnd, from + runLength);
+					crossover.copy(isFromParent1, from, to);
+					from = to;
+				}
 			}
-
-			return generate(random, codes1, codes2);
+			return crossover.child();
 		};
 	}
 
-	
+	static Reproducer onOnePoint(RandomGenerator random) {
+		return onCrossoverPoints(random, 1);
+	}
+
+	static Reproducer onTwoPoints(RandomGenerator random) {
+		return onCrossoverPoints(random, 2);
+	}
 
-	static Chromosome generate(Random random, List<Code> codes1, List<Code> codes2) {
-		List<Code> codesChild = new LinkedList<>();
-		for (int i = 0; i < codes1.size(); i++) {
-			List<Code> parent = random.nextBoolean() ? codes1 : codes2;
-			Code code = parent.get(i);
-			codesChild.add(code);
+	/**
+	 * Cut the parents at random points between their codes, and take the segments
+	 * from each parent alternately, starting with the first parent. Parents are
+	 * aligned like for {@link #onRandomCodes(RandomGenerator)}. If the parents do
+	 * not have enough codes, they are cut between each code.
+	 *
+	 * @param pointsCount the number of cuts, so the child has one segment more
+	 */
+	static Reproducer onCrossoverPoints(RandomGenerator random, int pointsCount) {
+		if (pointsCount < 1) {
+			throw new IllegalArgumentException("At least one point is required, currently " + pointsCount);
 		}
-		byte[] bytes = new Program(codesChild).serialize();
-		return new Chromosome(bytes);
+		return (chromosome1, chromosome2) -> {
+			Crossover crossover = new Crossover(chromosome1, chromosome2);
+			int codesCount = crossover.codesCount();
+			int[] points = random.ints(1, max(2, codesCount))//
+					.distinct()//
+					.limit(min(pointsCount, max(0, codesCount - 1)))//
+					.sorted()//
+					.toArray();
+			boolean isFromParent1 = true;
+			int from = 0;
+			for (int point : points) {
+				crossover.copy(isFromParent1, from, point);
+				isFromParent1 = !isFromParent1;
+				from = point;
+			}
+			crossover.copy(isFromParent1, from, codesCount);
+			return crossover.child();
+		};
 	}
 }
@@ -1,14 +1,14 @@
 package fr.vergne.denn.terrain;
 
-import static fr.vergne.denn.utils.StreamUtils.*;
-
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.function.Predicate;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 import fr.vergne.denn.agent.Agent;
 import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.adn.Chromosome;
 import fr.vergne.denn.agent.adn.Program;
 import fr.vergne.denn.utils.Position;
 import fr.vergne.denn.window.Button.Action;
@@ -28,7 +28,29 @@ public class BrowsersFactory {
 	}
 
 	public Stream<Browser> browsers(Program program) {
-		return cycleOver(positionsToBrowse).map(startPosition -> new Browser() {
+		return browsers(new Chromosome(program.serialize()));// Once for all the paths
+	}
+
+	/**
+	 * Browse the positions in cycle. The agent of each path gets its own seed:
+	 * the browsers draw theirs in order from a stream seeded now, and each browser
+	 * draws the seeds of its paths from its own stream. So the paths have the
+	 * same random signals, even if the browsers are consumed in parallel.
+	 */
+	public Stream<Browser> browsers(Chromosome chromosome) {
+		if (positionsToBrowse.isEmpty()) {
+			return Stream.empty();
+		}
+		record Start(int index, long seed) {
+		}
+		SplittableRandom browsersRandom = new SplittableRandom(networkFactory.nextSeed());
+		// Iterated in order, even in parallel, unlike the mapping
+		Stream<Start> starts = Stream.iterate(new Start(0, browsersRandom.nextLong()),
+				start -> new Start(start.index + 1, browsersRandom.nextLong()));
+		return starts.map(start -> new Browser() {
+			Position startPosition = positionsToBrowse.get(start.index % positionsToBrowse.size());
+			SplittableRandom pathsRandom = new SplittableRandom(start.seed);
+
 			@Override
 			public String toString() {
 				return "Trial@" + startPosition;
@@ -45,10 +67,11 @@ public class BrowsersFactory {
 			public Stream<Path> paths() {
 				Browser browser = this;
 				return Stream.generate(() -> {
-					Agent agentForRun = Agent.createFromProgram(networkFactory, program);
-					Terrain terrainForRun = Terrain.createWithSize(terrain.width(), terrain.height());
+					// The paths of a browser are generated in turn, like their index
+					Agent agentForRun = Agent.createFromChromosome(networkFactory, chromosome, pathsRandom.nextLong());
+					Terrain terrainForRun = terrain.createEmptyCopy();
 					terrainForRun.placeAgent(agentForRun, startPosition);
-					Action actionForRun = TerrainInteractor.moveAgents().on(terrainForRun);
+					Action actionForRun = TerrainInteractor.moveAgentsInTurn().on(terrainForRun);
 					return new Path() {
 						int index = runIndex++;
 
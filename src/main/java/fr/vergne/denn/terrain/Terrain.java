@@ -3,10 +3,13 @@ package fr.vergne.denn.terrain;
 import static java.util.Objects.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -18,14 +21,28 @@ public class Terrain {
 	private final int width;
 	private final int height;
 	private Map<Agent, Position> agentsPosition = new LinkedHashMap<>();// Linked for random determinism
+	private Agent[] agentsAt = null;// Agent on each cell, to find them without search, once several agents
+	private Agent loneAgent = null;// The only agent, if any, until agentsAt is allocated
+	private final Position[] positions;// Reused on each cell, to move without allocating
 
-	private Terrain(int width, int height) {
+	private Terrain(int width, int height, Position[] positions) {
 		this.width = width;
 		this.height = height;
+		this.positions = positions;
 	}
 
 	public static Terrain createWithSize(int width, int height) {
-		return new Terrain(width, height);
+		return new Terrain(width, height, new Position[width * height]);
+	}
+
+	/**
+	 * Create an empty terrain of the same size. It shares the positions reused on
+	 * its cells with this terrain, and like any terrain only indexes its cells
+	 * once it holds several agents. So it is cheap to create for a single agent,
+	 * like the terrain of each path of a browser.
+	 */
+	public Terrain createEmptyCopy() {
+		return new Terrain(width, height, positions);
 	}
 
 	public int width() {
@@ -74,15 +91,67 @@ public class Terrain {
 		if (!isFreeFor(agent, position)) {
 			throw new IllegalArgumentException("Unavailable position " + position);
 		}
-		agentsPosition.put(agent, position);
+		put(agent, position);
+	}
+
+	/**
+	 * Same as {@link #placeAgent(Agent, Position)} for each agent in order, but
+	 * checking all the positions before placing any agent.
+	 * 
+	 * @param agents    the agents to place
+	 * @param positions the position of each agent
+	 */
+	public void placeAgents(List<Agent> agents, List<Position> positions) {
+		if (agents.size() != positions.size()) {
+			throw new IllegalArgumentException(agents.size() + " agents for " + positions.size() + " positions");
+		}
+		Set<Integer> cells = new HashSet<>();
+		for (int i = 0; i < agents.size(); i++) {
+			Agent agent = requireNonNull(agents.get(i), "No agent provided");
+			Position position = requireNonNull(positions.get(i), "No position provided");
+			if (!isFreeFor(agent, position) || !cells.add(cellOf(position.x(), position.y()))) {
+				throw new IllegalArgumentException("Unavailable position " + position);
+			}
+		}
+		for (int i = 0; i < agents.size(); i++) {
+			put(agents.get(i), positions.get(i));
+		}
+	}
+
+	/**
+	 * Move an agent of one cell, in any direction, if the destination is free.
+	 * Moves going out of the terrain are restricted to its borders. Once each cell
+	 * has been reached once, this method does not allocate anything.
+	 * 
+	 * @param agent    the agent to move
+	 * @param moveCode the code of the move, as provided by {@link Position.Move#code()}
+	 * @return <code>true</code> if the agent has moved, <code>false</code> if the
+	 *         destination was occupied by another agent
+	 */
+	public boolean moveAgent(Agent agent, byte moveCode) {
+		Position position = getAgentPosition(agent);
+		int x = Math.max(0, Math.min(position.x() + Position.Move.dX(moveCode), width - 1));
+		int y = Math.max(0, Math.min(position.y() + Position.Move.dY(moveCode), height - 1));
+		int cell = cellOf(x, y);
+		Agent agentThere = agentAt(cell);
+		if (agentThere != null && !agentThere.equals(agent)) {
+			return false;
+		}
+		Position destination = positions[cell];
+		if (destination == null) {
+			destination = Position.at(x, y);
+			positions[cell] = destination;
+		}
+		put(agent, destination);
+		return true;
 	}
 
 	public Optional<Agent> replaceAgent(Agent agent, Position position) {
 		requireNonNull(agent, "No agent provided");
 		requireNonNull(position, "No position provided");
 		Optional<Agent> previous = getAgentAt(position);
-		previous.ifPresent(agentsPosition::remove);
-		agentsPosition.put(agent, position);
+		previous.ifPresent(this::removeAgent);
+		put(agent, position);
 		return previous;
 	}
 
@@ -96,8 +165,7 @@ public class Terrain {
 	public Optional<Agent> getAgentAt(Position position) {
 		requireNonNull(position, "No position provided");
 		if (position.restrict(minPosition(), maxPosition()).equals(position)) {
-			return agentsPosition.entrySet().stream().filter(entry -> entry.getValue().equals(position))
-					.<Agent>map(entry -> entry.getKey()).findFirst();
+			return Optional.ofNullable(agentAt(cellOf(position.x(), position.y())));
 		} else {
 			throw new IllegalArgumentException("Invalid position " + position);
 		}
@@ -137,9 +205,48 @@ public class Terrain {
 		if (position == null) {
 			throw new IllegalArgumentException("Unknown agent " + agent);
 		}
+		if (agentsAt == null) {
+			loneAgent = null;
+		} else {
+			agentsAt[cellOf(position.x(), position.y())] = null;
+		}
 		return position;
 	}
 
+	private void put(Agent agent, Position position) {
+		if (agentsAt == null && loneAgent != null && !loneAgent.equals(agent)) {
+			// Second agent, so index the cells from now on
+			agentsAt = new Agent[width * height];
+			Position lonePosition = agentsPosition.get(loneAgent);
+			agentsAt[cellOf(lonePosition.x(), lonePosition.y())] = loneAgent;
+			loneAgent = null;
+		}
+		Position previousPosition = agentsPosition.put(agent, position);
+		if (agentsAt == null) {
+			loneAgent = agent;
+			return;
+		}
+		if (previousPosition != null) {
+			agentsAt[cellOf(previousPosition.x(), previousPosition.y())] = null;
+		}
+		agentsAt[cellOf(position.x(), position.y())] = agent;
+	}
+
+	private Agent agentAt(int cell) {
+		if (agentsAt != null) {
+			return agentsAt[cell];
+		}
+		if (loneAgent == null) {
+			return null;
+		}
+		Position position = agentsPosition.get(loneAgent);
+		return cellOf(position.x(), position.y()) == cell ? loneAgent : null;
+	}
+
+	private int cellOf(int x, int y) {
+		return y * width + x;
+	}
+
 	public void optimize() {
 		agentsPosition = new LinkedHashMap<Agent, Position>(agentsPosition);// Linked for random determinism
 	}
@@ -3,19 +3,25 @@ package fr.vergne.denn.terrain;
 import static java.lang.Math.*;
 import static java.util.stream.Collectors.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.IntStream;
 
 import fr.vergne.denn.agent.Agent;
 import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.PopulationEvaluator;
 import fr.vergne.denn.agent.adn.Chromosome;
 import fr.vergne.denn.agent.adn.Mutator;
 import fr.vergne.denn.agent.adn.Program;
@@ -27,22 +33,41 @@ public interface TerrainInteractor {
 	public Button.Action on(Terrain terrain);
 
 	public static TerrainInteractor moveAgents() {
+		return moveAgents(new PopulationEvaluator());
+	}
+
+	public static TerrainInteractor moveAgents(PopulationEvaluator evaluator) {
 		return terrain -> {
 			Position minPosition = terrain.minPosition();
 			Position maxPosition = terrain.maxPosition();
 			return () -> {
-				terrain.agents().forEach(agent -> {
-					Position currentPosition = terrain.getAgentPosition(agent);
-					Position wantedPosition = agent.decideNextPosition(currentPosition);
-					Position validPosition = wantedPosition.restrict(minPosition, maxPosition);
+				List<Agent> agents = terrain.agents().collect(toList());
+				List<Position> currentPositions = agents.stream().map(terrain::getAgentPosition).collect(toList());
+				List<Position> wantedPositions = evaluator.decideNextPositions(agents, currentPositions);
+				for (int agentIndex = 0; agentIndex < agents.size(); agentIndex++) {
+					Agent agent = agents.get(agentIndex);
+					Position validPosition = wantedPositions.get(agentIndex).restrict(minPosition, maxPosition);
 					if (terrain.isFreeFor(agent, validPosition)) {
 						terrain.placeAgent(agent, validPosition);
 					}
-				});
+				}
 			};
 		};
 	}
 
+	/**
+	 * Same moves than {@link #moveAgents()}, but each agent decides and moves in
+	 * turn through primitive move codes, so no position is allocated. Since an
+	 * agent decides on its own position only, the result is the same. Prefer it
+	 * when few agents share a topology, like a single agent on its terrain.
+	 */
+	public static TerrainInteractor moveAgentsInTurn() {
+		return terrain -> () -> terrain.agents().forEach(agent -> {
+			Position position = terrain.getAgentPosition(agent);
+			terrain.moveAgent(agent, agent.decideNextMove(position.x(), position.y()));
+		});
+	}
+
 	public static TerrainInteractor killAgents(BiPredicate<Terrain, Agent> selector) {
 		return terrain -> {
 			Predicate<Agent> forKilling = agent -> selector.test(terrain, agent);
@@ -55,16 +80,10 @@ public interface TerrainInteractor {
 	}
 
 	public static TerrainInteractor reproduceAgents(NeuralNetwork.Factory networkFactory, Reproducer reproducer,
-			Mutator mutator, int agentsLimit, Random random) {
+			Mutator mutator, int agentsLimit, RandomGenerator random) {
 		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
 		return terrain -> {
-			int agentsMax = terrain.width() * terrain.height();
-			if (agentsLimit > agentsMax) {
-				IllegalArgumentException tooHighLimit = new IllegalArgumentException(
-						"Agents limit must be at most " + agentsMax);
-				tooHighLimit.setStackTrace(stackTrace);
-				throw tooHighLimit;
-			}
+			checkAgentsLimit(terrain, agentsLimit, stackTrace);
 			return () -> {
 				List<Agent> parents = terrain.agents().collect(toList());
 				Iterator<Position> freeRandomPosition = searchFreePositions(terrain, random);
@@ -82,6 +101,71 @@ public interface TerrainInteractor {
 		};
 	}
 
+	public static TerrainInteractor reproduceAgentsInParallel(NeuralNetwork.Factory networkFactory,
+			Function<RandomGenerator, Reproducer> reproducers, Function<RandomGenerator, Mutator> mutators,
+			int agentsLimit, SplittableGenerator random) {
+		return reproduceAgentsInParallel(networkFactory, reproducers, mutators, agentsLimit, random,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Same as
+	 * {@link #reproduceAgents(NeuralNetwork.Factory, Reproducer, Mutator, int, RandomGenerator)},
+	 * but building the children in parallel. Each child is planned in turn: its
+	 * parents, its position, its network builder and its own random stream, split
+	 * from the given one. The children are then reproduced, mutated and compiled
+	 * in parallel, and placed on the terrain at once. Since a child only depends
+	 * on its plan, the result does not depend on the number of threads.
+	 * 
+	 * @param reproducers the {@link Reproducer} of a child, given its random stream
+	 * @param mutators    the {@link Mutator} of a child, given its random stream
+	 * @param pool        the threads building the children
+	 */
+	public static TerrainInteractor reproduceAgentsInParallel(NeuralNetwork.Factory networkFactory,
+			Function<RandomGenerator, Reproducer> reproducers, Function<RandomGenerator, Mutator> mutators,
+			int agentsLimit, SplittableGenerator random, ForkJoinPool pool) {
+		StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+		return terrain -> {
+			checkAgentsLimit(terrain, agentsLimit, stackTrace);
+			record Plan(Chromosome chromosome1, Chromosome chromosome2, RandomGenerator random,
+					Function<Chromosome, Agent> agentCreator) {
+			}
+			return () -> {
+				List<Agent> parents = terrain.agents().collect(toList());
+				Iterator<Position> freeRandomPosition = searchFreePositions(terrain, random);
+				List<Plan> plans = new ArrayList<>();
+				List<Position> positions = new ArrayList<>();
+				while (terrain.agentsCount() + plans.size() < agentsLimit && freeRandomPosition.hasNext()) {
+					Agent parent1 = parents.get(random.nextInt(parents.size()));
+					Agent parent2 = parents.get(random.nextInt(parents.size()));
+					plans.add(new Plan(parent1.chromosome(), parent2.chromosome(), random.split(),
+							Agent.reserveFromChromosome(networkFactory)));
+					positions.add(freeRandomPosition.next());
+				}
+
+				Agent[] children = new Agent[plans.size()];
+				pool.submit(() -> IntStream.range(0, plans.size()).parallel().forEach(childIndex -> {
+					Plan plan = plans.get(childIndex);
+					Chromosome chromosomeChild = reproducers.apply(plan.random)//
+							.reproduce(plan.chromosome1, plan.chromosome2);
+					chromosomeChild = mutators.apply(plan.random).mutate(chromosomeChild);
+					children[childIndex] = plan.agentCreator.apply(chromosomeChild);
+				})).join();
+				terrain.placeAgents(Arrays.asList(children), positions);
+			};
+		};
+	}
+
+	private static void checkAgentsLimit(Terrain terrain, int agentsLimit, StackTraceElement[] stackTrace) {
+		int agentsMax = terrain.width() * terrain.height();
+		if (agentsLimit > agentsMax) {
+			IllegalArgumentException tooHighLimit = new IllegalArgumentException(
+					"Agents limit must be at most " + agentsMax);
+			tooHighLimit.setStackTrace(stackTrace);
+			throw tooHighLimit;
+		}
+	}
+
 	public static TerrainInteractor fillAgents(NeuralNetwork.Factory networkFactory, Function<Position, Program> programFactory) {
 		return terrain -> {
 			return () -> {
@@ -95,14 +179,17 @@ public interface TerrainInteractor {
 		};
 	}
 
-	private static Iterator<Position> searchFreePositions(Terrain terrain, Random random) {
+	private static Iterator<Position> searchFreePositions(Terrain terrain, RandomGenerator random) {
 		List<Position> freePositions = terrain.freePositions().collect(toList());
-		Collections.shuffle(freePositions, random);
+		// Same as Collections.shuffle, which only accepts a Random
+		for (int i = freePositions.size(); i > 1; i--) {
+			Collections.swap(freePositions, i - 1, random.nextInt(i));
+		}
 		Iterator<Position> freeRandomPosition = freePositions.iterator();
 		return freeRandomPosition;
 	}
 
-	public static TerrainInteractor dispatchAgentRandomly(Random random) {
+	public static TerrainInteractor dispatchAgentRandomly(RandomGenerator random) {
 		return terrain -> {
 			return () -> {
 				List<Agent> agents = terrain.agents().collect(toList());
@@ -144,15 +231,15 @@ public interface TerrainInteractor {
 
 			public static class Factory {
 				private final Terrain terrain;
-				private final Random random;
+				private final RandomGenerator random;
 				private final Optional<Double> safeDistance;
 				private final Optional<Double> deathDistance;
 
-				public Factory(Terrain terrain, Random random) {
+				public Factory(Terrain terrain, RandomGenerator random) {
 					this(terrain, random, Optional.empty(), Optional.empty());
 				}
 
-				private Factory(Terrain terrain, Random random, Optional<Double> safeDistance,
+				private Factory(Terrain terrain, RandomGenerator random, Optional<Double> safeDistance,
 						Optional<Double> deathDistance) {
 					this.terrain = Objects.requireNonNull(terrain, "No terrain provided");
 					this.random = Objects.requireNonNull(random, "No random computer provided");
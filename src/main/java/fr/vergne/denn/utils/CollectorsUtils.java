@@ -4,12 +4,19 @@ import static java.util.Collections.*;
 import static java.util.stream.Collectors.*;
 
 import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collector;
 
 public class CollectorsUtils {
-	public static <T> Collector<T, ?, List<T>> toShuffledList() {
+	/**
+	 * Shuffle like {@link java.util.Collections#shuffle(List, java.util.Random)},
+	 * so the same random source gives the same order.
+	 */
+	public static <T> Collector<T, ?, List<T>> toShuffledList(RandomGenerator random) {
 		return collectingAndThen(toList(), list -> {
-			shuffle(list);
+			for (int i = list.size() - 1; i > 0; i--) {
+				swap(list, i, random.nextInt(i + 1));
+			}
 			return list;
 		});
 	}
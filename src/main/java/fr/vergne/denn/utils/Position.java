@@ -164,9 +164,51 @@ public record Position(int x, int y) {
 
 	public record Move(int dX, int dY) {
 
+		private static final Move[] UNIT_MOVES = IntStream.range(0, 9)//
+				.mapToObj(code -> new Move(code / 3 - 1, code % 3 - 1))//
+				.toArray(Move[]::new);
+
 		public Move absolute() {
 			return new Move(abs(dX), abs(dY));
 		}
+
+		/**
+		 * @return the code of this unit move, as provided by {@link #code(int, int)}
+		 */
+		public byte code() {
+			return code(dX, dY);
+		}
+
+		/**
+		 * Encode one of the 9 unit moves, where each delta is -1, 0, or 1, in a
+		 * single byte, so it can be passed around without allocating a {@link Move}.
+		 * 
+		 * @param dX the X delta, within [-1;1]
+		 * @param dY the Y delta, within [-1;1]
+		 * @return the code of the move, within [0;8]
+		 */
+		public static byte code(int dX, int dY) {
+			if (dX < -1 || dX > 1 || dY < -1 || dY > 1) {
+				throw new IllegalArgumentException("Not a unit move: (" + dX + ", " + dY + ")");
+			}
+			return (byte) ((dX + 1) * 3 + (dY + 1));
+		}
+
+		public static int dX(byte code) {
+			return code / 3 - 1;
+		}
+
+		public static int dY(byte code) {
+			return code % 3 - 1;
+		}
+
+		/**
+		 * @param code the code of a unit move, as provided by {@link #code(int, int)}
+		 * @return the shared instance of the corresponding move
+		 */
+		public static Move fromCode(byte code) {
+			return UNIT_MOVES[code];
+		}
 	}
 
 	public static class Conversion {
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
@@ -30,12 +31,14 @@ import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collector;
+import java.util.stream.IntStream;
 
 import fr.vergne.denn.agent.Agent;
 import fr.vergne.denn.agent.Neural.Builder;
 import fr.vergne.denn.agent.NeuralNetwork;
 import fr.vergne.denn.agent.NeuralNetwork.AgentNetwork;
 import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.agent.adn.ProgramView;
 import fr.vergne.denn.terrain.BrowsersFactory;
 import fr.vergne.denn.terrain.BrowsersFactory.Step;
 import fr.vergne.denn.terrain.Terrain;
@@ -55,9 +58,9 @@ public interface AgentColorizer {
 		return agent -> cache.computeIfAbsent(agent, this::colorize);
 	}
 
-	default AgentColorizer cacheByProgram(Map<Program, Color> cache) {
+	default AgentColorizer cacheByProgram(Map<ProgramView, Color> cache) {
 		return agent -> {
-			Program program = Program.deserialize(agent.chromosome().bytes());
+			ProgramView program = ProgramView.of(agent.chromosome());
 			return cache.computeIfAbsent(program, k -> colorize(agent));
 		};
 	}
@@ -131,6 +134,17 @@ public interface AgentColorizer {
 					return this;
 				}
 
+				@Override
+				public Builder<Color> createNeuronWithDotProductFunction(double... weights) {
+					// Like a sum of weighted sums, each reading a single input
+					colorFunctions.add(inputs -> IntStream.range(0, min(inputs.size(), weights.length))//
+							.mapToObj(i -> colorAdapter(value -> normalizeChannel((int) (value * weights[i])))
+									.apply(inputs.get(i)))//
+							.reduce(colorAccumulator((value1, value2) -> normalizeChannel(value1 + value2)))//
+							.orElse(TRANSPARENT));
+					return this;
+				}
+
 				@Override
 				public Builder<Color> createNeuronWithSumFunction() {
 					return createNeuronWithWeightedSumFunction(1.0);
@@ -210,82 +224,35 @@ public interface AgentColorizer {
 
 	public static AgentColorizer pickingOnWeights() {
 		return agent -> {
-			Builder<Color> colorBuilder = new Builder<Color>() {
-
-				private final List<Double> weights = new LinkedList<>();
-
-				@Override
-				public Builder<Color> createNeuronWithFixedSignal(double signal) {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> createNeuronWithRandomSignal() {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> createNeuronWithWeightedSumFunction(double weight) {
-					weights.add(weight);
-					return this;
-				}
-
-				@Override
-				public Builder<Color> createNeuronWithSumFunction() {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> createNeuronWithMinFunction() {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> createNeuronWithMaxFunction() {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> moveTo(int neuronIndex) {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> readSignalFrom(int neuronIndex) {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> setDXAt(int neuronIndex) {
-					return this;
-				}
-
-				@Override
-				public Builder<Color> setDYAt(int neuronIndex) {
-					return this;
-				}
-
-				@Override
-				public Color build() {
-					if (weights.isEmpty()) {
-						return Color.BLACK;
+			ProgramView program = ProgramView.of(agent.chromosome());
+			ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * program.codesCount());
+			boolean[] isInDotProduct = { false };
+			program.accept((codeIndex, operation, value) -> {
+				switch (operation) {
+				case CREATE_WITH_WEIGHTED_SUM_FUNCTION:
+					buffer.putDouble(value);
+					isInDotProduct[0] = false;
+					break;
+				case CREATE_WITH_DOT_PRODUCT_FUNCTION:
+					buffer.putDouble(value);
+					isInDotProduct[0] = true;
+					break;
+				case WEIGHT:
+					if (isInDotProduct[0]) {
+						buffer.putDouble(value);
 					}
-
-					ByteBuffer buffer = weights.stream().collect(//
-							() -> ByteBuffer.allocate(Double.BYTES * weights.size()), //
-							ByteBuffer::putDouble, //
-							(buffer1, buffer2) -> {
-								buffer1.put(buffer2.flip());
-							});
-					int rgba = pickBits(buffer.array(), Integer.SIZE, UnaryOperator.identity()).getInt();
-					return new Color(rgba, false);
+					break;
+				default:
+					isInDotProduct[0] = false;
 				}
-			};
-			byte[] chromosomeBytes = agent.chromosome().bytes();
-			Program program = Program.deserialize(chromosomeBytes);
-			program.executeOn(colorBuilder);
-			Color color = colorBuilder.build();
-			return color;
+			});
+			if (buffer.position() == 0) {
+				return Color.BLACK;
+			}
+
+			byte[] weightsBytes = Arrays.copyOf(buffer.array(), buffer.position());
+			int rgba = pickBits(weightsBytes, Integer.SIZE, UnaryOperator.identity()).getInt();
+			return new Color(rgba, false);
 		};
 	}
 
@@ -339,30 +306,45 @@ public interface AgentColorizer {
 
 		BitSet bits = new BitSet(4 * Byte.SIZE);
 
-		AgentColorizer agentColorizer = agent -> {
-			byte[] bytes = agent.chromosome().bytes();
-			Program program = Program.deserialize(bytes);
-			AgentNetwork network = networkFactory.execute(program).forAgent();
+		int stepX = (terrain.width() - 1) / (Byte.SIZE - 1);
+		int stepY = (terrain.height() - 1) / (Byte.SIZE - 1);
+		double[] xs = new double[Byte.SIZE];
+		double[] ys = new double[Byte.SIZE];
+		for (int i = 0; i < Byte.SIZE; i++) {
+			xs[i] = i * stepX;
+			ys[i] = i * stepY;
+		}
+		double[] dXs = new double[Byte.SIZE];
+		double[] dYs = new double[Byte.SIZE];
 
-			int stepX = (terrain.width() - 1) / (Byte.SIZE - 1);
-			int stepY = (terrain.height() - 1) / (Byte.SIZE - 1);
+		Position.Move[] moves = new Position.Move[Byte.SIZE];
+
+		AgentColorizer agentColorizer = agent -> {
+			if (agent.isDeterministic()) {
+				// Deciding does not change the agent, which may use its move field
+				for (int i = 0; i < Byte.SIZE; i++) {
+					moves[i] = Position.Move.fromCode(agent.decideNextMove((int) xs[i], (int) ys[i]));
+				}
+			} else {
+				NeuralNetwork network = networkFactory.execute(agent.chromosome());
+				network.fireBatch(xs, ys, dXs, dYs, Byte.SIZE);
+				for (int i = 0; i < Byte.SIZE; i++) {
+					moves[i] = new Position.Move(//
+							AgentNetwork.toUnitaryMove(dXs[i]), //
+							AgentNetwork.toUnitaryMove(dYs[i])//
+					);
+				}
+			}
 
 			bits.clear();
 			bitsMemoryReset.run();
-			int x = 0;
-			int y = 0;
 			for (int i = 0; i < Byte.SIZE; i++) {
-				network.setPosition(Position.at(x, y));
-				network.fire();
-				Position.Move move = network.getMove();
+				Position.Move move = moves[i];
 
 				bits.set(redMinIndex + i, redBit.apply(move));
 				bits.set(greenMinIndex + i, greenBit.apply(move));
 				bits.set(blueMinIndex + i, blueBit.apply(move));
 				bits.set(alphaMinIndex + i, alphaBit.apply(move));
-
-				x += stepX;
-				y += stepY;
 			}
 
 			ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
@@ -379,7 +361,9 @@ public interface AgentColorizer {
 	public static AgentColorizer pickingOnAttractors(Terrain terrain, NeuralNetwork.Factory networkFactory) {
 		// FIXME Try sorting the positions smartly (taking the next most distant?)
 		Collector<Position, ?, List<Position>> collector1 = toSpreadedPositions();
-		Collector<Position, ?, List<Position>> collector2 = toShuffledList();
+		// Seeded in turn, so the attractors are explored the same for the same seed
+		Collector<Position, ?, List<Position>> collector2 = toShuffledList(
+				new SplittableRandom(networkFactory.nextSeed()));
 		BrowsersFactory browserFactory = new BrowsersFactory(networkFactory, terrain, collector2);
 
 		Move maxDistances = terrain.minPosition().to(terrain.maxPosition());
@@ -427,9 +411,7 @@ public interface AgentColorizer {
 		int maxPathsPerStart = min(terrainSurface, 5);
 		int maxStepsPerPath = terrain.width() + terrain.height();
 		AgentColorizer agentColorizer = agent -> {
-			byte[] bytes = agent.chromosome().bytes();
-			Program program = Program.deserialize(bytes);
-			AttractorsStats stats = browserFactory.browsers(program).limit(maxStarts)//
+			AttractorsStats stats = browserFactory.browsers(agent.chromosome()).limit(maxStarts)//
 					.flatMap(browser -> {
 						Position startPosition = browser.startPosition();
 						return browser.paths().limit(maxPathsPerStart)//
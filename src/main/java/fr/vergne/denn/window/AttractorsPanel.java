@@ -13,6 +13,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -207,7 +208,8 @@ public class AttractorsPanel extends TerrainPanel {
 				}
 			}
 		};
-		BrowsersFactory browsersFactory = new BrowsersFactory(networkFactory, terrain, toShuffledList());
+		BrowsersFactory browsersFactory = new BrowsersFactory(networkFactory, terrain,
+				toShuffledList(new SplittableRandom(networkFactory.nextSeed())));
 		Iterator<Runnable> taskIterator = lazyFlatMap(//
 				browsersFactory.browsers(program).limit(maxStartPositions), //
 				trial -> trial.paths().limit(maxRunsPerStartPosition))//
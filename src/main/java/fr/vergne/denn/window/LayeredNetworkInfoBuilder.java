@@ -22,6 +22,7 @@ public class LayeredNetworkInfoBuilder implements Neural.Builder<LayeredNetwork.
 	private int currentIndex = 0;
 	private final Collection<Integer> nonWeightNeurons;
 	private final Map<Integer, Double> weightNeurons;
+	private final Map<Integer, double[]> dotProductNeurons;
 	private final Map<Integer, String> names;
 	private int dX;
 	private int dY;
@@ -34,6 +35,7 @@ public class LayeredNetworkInfoBuilder implements Neural.Builder<LayeredNetwork.
 	public LayeredNetworkInfoBuilder() {
 		nonWeightNeurons = new LinkedList<>();
 		weightNeurons = new HashMap<>();
+		dotProductNeurons = new HashMap<>();
 		names = new HashMap<>();
 		readings = new LinkedList<>();
 		// x = 0
@@ -57,6 +59,14 @@ public class LayeredNetworkInfoBuilder implements Neural.Builder<LayeredNetwork.
 		return this;
 	}
 
+	@Override
+	public Builder<Description> createNeuronWithDotProductFunction(double... weights) {
+		names.put(nextNeuronIndex, "DOT");
+		dotProductNeurons.put(nextNeuronIndex, weights);
+		nonWeightNeurons.add(nextNeuronIndex++);
+		return this;
+	}
+
 	@Override
 	public Builder<Description> createNeuronWithRandomSignal() {
 		names.put(nextNeuronIndex, "RAND");
@@ -131,7 +141,16 @@ public class LayeredNetworkInfoBuilder implements Neural.Builder<LayeredNetwork.
 				}
 			}
 			return new Synapse(reader, weight, readee);
-		}).collect(toList());
+		}).collect(toCollection(LinkedList::new));
+		dotProductNeurons.forEach((dotProductNeuron, weights) -> {
+			// Each read input has its own weight, in order
+			int weightIndex = 0;
+			for (Reading reading : readings) {
+				if (reading.reader == dotProductNeuron && weightIndex < weights.length) {
+					synapses.add(new Synapse(dotProductNeuron, weights[weightIndex++], reading.readee));
+				}
+			}
+		});
 
 		Collection<Collection<Integer>> layers = new LinkedList<>();
 		Extract lastExtract = new Extract(null, synapses);
@@ -1,7 +1,10 @@
 package fr.vergne.denn.window;
 
+import static java.util.stream.Collectors.*;
+
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.BiConsumer;
@@ -91,6 +94,12 @@ public class ProgramInfoBuilder implements Neural.Builder<String> {
 		return this;
 	}
 
+	@Override
+	public Builder<String> createNeuronWithDotProductFunction(double... weights) {
+		neuronAdder.accept(Arrays.stream(weights).mapToObj(String::valueOf).collect(joining(", ", "DOT(", ")")));
+		return this;
+	}
+
 	@Override
 	public Builder<String> createNeuronWithMinFunction() {
 		neuronAdder.accept("MIN");
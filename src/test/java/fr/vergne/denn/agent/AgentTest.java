@@ -0,0 +1,98 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.terrain.Terrain;
+import fr.vergne.denn.utils.Position;
+
+class AgentTest {
+
+	@Test
+	void testDecideNextMoveMovesLikeDecideNextPosition() {
+		Random random = new Random(0);
+		Agent reference = createAgent(new Program.Factory().randomMover(), new Random(0));
+		Agent primitive = createAgent(new Program.Factory().randomMover(), new Random(0));
+
+		for (int step = 0; step < 100; step++) {
+			Position position = Position.at(random.nextInt(100), random.nextInt(100));
+			Position expected = reference.decideNextPosition(position);
+
+			byte moveCode = primitive.decideNextMove(position.x(), position.y());
+
+			assertEquals(expected, position.move(Position.Move.fromCode(moveCode)), "Step " + step);
+		}
+	}
+
+	@Test
+	void testDecisionStepDoesNotAllocate() {
+		// Random moves within a bounded terrain, so the agent keeps moving
+		Terrain terrain = Terrain.createWithSize(10, 10);
+		Agent agent = createAgent(new Program.Factory().randomMover(), new Random(0));
+		terrain.placeAgent(agent, terrain.topLeft());
+		int[] movesCount = { 0 };
+		Runnable step = () -> {
+			Position position = terrain.getAgentPosition(agent);
+			terrain.moveAgent(agent, agent.decideNextMove(position.x(), position.y()));
+			if (terrain.getAgentPosition(agent) != position) {// Positions of the terrain are reused
+				movesCount[0]++;
+			}
+		};
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		// Warm up, so the JIT compiles the step and all the positions are reached
+		for (int i = 0; i < 100_000; i++) {
+			step.run();
+		}
+		long measureCost = threadBean.getThreadAllocatedBytes(threadId);
+		measureCost = threadBean.getThreadAllocatedBytes(threadId) - measureCost;
+
+		int stepsCount = 1000;
+		movesCount[0] = 0;
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < stepsCount; i++) {
+			step.run();
+		}
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before - measureCost;
+
+		assertTrue(movesCount[0] > stepsCount / 2, movesCount[0] + " moves in " + stepsCount + " steps");
+		assertEquals(0, allocated, allocated + " bytes allocated in " + stepsCount + " steps");
+	}
+
+	@Test
+	void testAgentsWithOwnStreamsDecideIndependentlyOfTheirOrder() {
+		SplittableRandom random1 = new SplittableRandom(0);
+		SplittableRandom random2 = new SplittableRandom(0);
+		Program program = new Program.Factory().randomMover();
+		List<Agent> agents1 = List.of(createAgent(program, random1.split()), createAgent(program, random1.split()));
+		List<Agent> agents2 = List.of(createAgent(program, random2.split()), createAgent(program, random2.split()));
+
+		Position position = Position.at(50, 50);
+		for (int step = 0; step < 100; step++) {
+			Position first1 = agents1.get(0).decideNextPosition(position);
+			Position second1 = agents1.get(1).decideNextPosition(position);
+			// Reverse order
+			Position second2 = agents2.get(1).decideNextPosition(position);
+			Position first2 = agents2.get(0).decideNextPosition(position);
+
+			assertEquals(first1, first2, "Step " + step);
+			assertEquals(second1, second2, "Step " + step);
+		}
+	}
+
+	private static Agent createAgent(Program program, RandomGenerator random) {
+		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+				seed -> new NeuralNetwork.Builder(random::nextDouble), random);
+		return Agent.createFromProgram(networkFactory, program);
+	}
+}
@@ -0,0 +1,88 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class BatchKernelTest {
+
+	static Stream<Integer> counts() {
+		return Stream.of(0, 1, 3, 8, 17, 100);
+	}
+
+	@Test
+	void testDefaultKernelUsesVectorsWhenModuleIsAvailable() {
+		// The build adds the module, so it should be used in tests
+		assertTrue(BatchKernel.DEFAULT instanceof VectorBatchKernel, BatchKernel.DEFAULT.toString());
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelAddsLikeScalar(int count) {
+		assertSameAsScalar(count, (kernel, signals) -> kernel.add(signals, 3, count + 5, count));
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelMultipliesLikeScalar(int count) {
+		assertSameAsScalar(count, (kernel, signals) -> kernel.multiply(signals, 3, -1.5, count));
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelMultipliesLanesLikeScalar(int count) {
+		assertSameAsScalar(count, (kernel, signals) -> kernel.multiply(signals, 3, signals, count + 5, count));
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelAddsProductsLikeScalar(int count) {
+		double[] factors = signals(count + 1);
+		assertSameAsScalar(count, (kernel, signals) -> kernel.addProduct(signals, 3, count + 5, factors, 1, count));
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelComputesMinLikeScalar(int count) {
+		assertSameAsScalar(count, (kernel, signals) -> kernel.min(signals, 3, count + 5, count));
+	}
+
+	@ParameterizedTest
+	@MethodSource("counts")
+	void testKernelComputesMaxLikeScalar(int count) {
+		assertSameAsScalar(count, (kernel, signals) -> kernel.max(signals, 3, count + 5, count));
+	}
+
+	interface Operation {
+		void apply(BatchKernel kernel, double[] signals);
+	}
+
+	private static void assertSameAsScalar(int count, Operation operation) {
+		double[] reference = signals(2 * count + 10);
+		double[] signals = reference.clone();
+
+		operation.apply(BatchKernel.SCALAR, reference);
+		operation.apply(BatchKernel.DEFAULT, signals);
+
+		assertArrayEquals(reference, signals);
+	}
+
+	private static double[] signals(int length) {
+		double[] specials = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+		Random random = new Random(0);
+		double[] signals = new double[length];
+		Consumer<Integer> filler = i -> signals[i] = random.nextInt(10) == 0
+				? specials[random.nextInt(specials.length)]
+				: (random.nextDouble() - 0.5) * 100;
+		for (int i = 0; i < length; i++) {
+			filler.accept(i);
+		}
+		return signals;
+	}
+}
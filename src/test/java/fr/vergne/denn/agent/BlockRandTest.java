@@ -0,0 +1,54 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class BlockRandTest {
+
+	static Stream<Integer> blockSizes() {
+		return Stream.of(1, 2, 3, 64, 100);
+	}
+
+	@ParameterizedTest
+	@MethodSource("blockSizes")
+	void testBlockRandFollowsXoshiro256PlusPlus(int blockSize) {
+		// First outputs of the reference implementation from the state {1, 2, 3, 4}
+		long[] outputs = { 41943041L, 58720359L, 3588806011781223L, 3591011842654386L };
+		BlockRand random = new BlockRand(1, 2, 3, 4, blockSize);
+
+		for (long output : outputs) {
+			assertEquals((output >>> 11) * 0x1.0p-53, random.next());
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("blockSizes")
+	void testBlockSizeDoesNotChangeNumbers(int blockSize) {
+		BlockRand reference = new BlockRand(123, 1);
+		BlockRand random = new BlockRand(123, blockSize);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(reference.next(), random.next(), "Number " + i);
+		}
+	}
+
+	@Test
+	void testNumbersAreUniformInUnitInterval() {
+		BlockRand random = new BlockRand(0);
+		double[] numbers = DoubleStream.generate(random::next).limit(100_000).toArray();
+
+		assertTrue(DoubleStream.of(numbers).allMatch(number -> number >= 0 && number < 1));
+		assertEquals(0.5, DoubleStream.of(numbers).average().orElseThrow(), 0.01);
+	}
+
+	@Test
+	void testSeedsGenerateDifferentNumbers() {
+		assertNotEquals(new BlockRand(0).next(), new BlockRand(1).next());
+	}
+}
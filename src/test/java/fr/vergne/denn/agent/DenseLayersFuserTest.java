@@ -0,0 +1,112 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.adn.Program;
+
+class DenseLayersFuserTest {
+
+	@Test
+	void testFuserReplacesPerceptronsByDotProducts() {
+		Definitions definitions = perceptronsDefinitions(new Random(0));
+		int dX = definitions.dXIndex();
+		int dY = definitions.dYIndex();
+
+		Structure optimized = CompiledNetwork.compileOptimized(definitions.neurons(), dX, dY);
+		Structure dense = CompiledNetwork.compileDense(definitions.neurons(), dX, dY);
+
+		assertEquals(2, DenseLayersFuser.fuse(definitions.neurons()).fusedNeuronsCount());
+		// X, Y, 2 randoms, the weighted constant folded for each output, the 2 outputs
+		assertEquals(8, dense.size());
+		assertTrue(dense.size() * 2 <= optimized.size(), dense.size() + " vs " + optimized.size());
+		assertEquals(Structure.DOT, dense.operations[dense.dXIndex]);
+		assertEquals(Structure.DOT, dense.operations[dense.dYIndex]);
+	}
+
+	@Test
+	void testDenseNetworksComputeLikeOptimized() {
+		Random inputsRandom = new Random(0);
+		for (int trial = 0; trial < 20; trial++) {
+			Definitions definitions = perceptronsDefinitions(new Random(trial));
+			List<NeuronDefinition> neurons = definitions.neurons();
+			int dX = definitions.dXIndex();
+			int dY = definitions.dYIndex();
+			List<NeuralNetwork> references = List.of(//
+					CompiledNetwork.compileOptimized(neurons, dX, dY).instantiate(), //
+					CompiledNetwork.compileOptimized(neurons, dX, dY).instantiate()//
+			);
+			List<NeuralNetwork> networks = List.of(//
+					CompiledNetwork.compileDense(neurons, dX, dY).instantiate(), //
+					BytecodeNetwork.generate(CompiledNetwork.compileDense(neurons, dX, dY))//
+			);
+			assertTrue(networks.get(1) instanceof BytecodeNetwork);
+
+			double[] xs = inputsRandom.doubles(10, -100, 100).toArray();
+			double[] ys = inputsRandom.doubles(10, -100, 100).toArray();
+			for (int i = 0; i < networks.size(); i++) {
+				NeuralNetwork reference = references.get(i);
+				NeuralNetwork network = networks.get(i);
+				for (int sample = 0; sample < xs.length; sample++) {
+					reference.setXSignal(xs[sample]);
+					reference.setYSignal(ys[sample]);
+					reference.fire();
+					network.setXSignal(xs[sample]);
+					network.setYSignal(ys[sample]);
+					network.fire();
+					assertEquals(reference.dXSignal(), network.dXSignal(), "Trial " + trial);
+					assertEquals(reference.dYSignal(), network.dYSignal(), "Trial " + trial);
+				}
+			}
+		}
+	}
+
+	@Test
+	void testDenseNetworksFireBatchLikeOptimized() {
+		Definitions definitions = perceptronsDefinitions(new Random(0));
+		List<NeuronDefinition> neurons = definitions.neurons();
+		int dX = definitions.dXIndex();
+		int dY = definitions.dYIndex();
+		NeuralNetwork reference = CompiledNetwork.compileOptimized(neurons, dX, dY).instantiate();
+		NeuralNetwork network = CompiledNetwork.compileDense(neurons, dX, dY).instantiate();
+
+		double[] xs = new Random(1).doubles(17, -100, 100).toArray();
+		double[] ys = new Random(2).doubles(17, -100, 100).toArray();
+		double[] referenceDXs = new double[xs.length];
+		double[] referenceDYs = new double[xs.length];
+		double[] dXs = new double[xs.length];
+		double[] dYs = new double[xs.length];
+		reference.fireBatch(xs, ys, referenceDXs, referenceDYs, xs.length);
+		network.fireBatch(xs, ys, dXs, dYs, xs.length);
+
+		assertArrayEquals(referenceDXs, dXs);
+		assertArrayEquals(referenceDYs, dYs);
+	}
+
+	private static record Definitions(List<NeuronDefinition> neurons, int dXIndex, int dYIndex) {
+	}
+
+	private static Definitions perceptronsDefinitions(Random random) {
+		Program program = new Program.Factory().createPerceptrons(//
+				inputs -> inputs.weighted(random.doubles(5, -2, 2).toArray()), //
+				inputs -> inputs.weighted(random.doubles(5, -2, 2).toArray())//
+		);
+		List<Definitions> definitions = new ArrayList<>();
+		// Constant random signals, so all the networks built from them compute the same
+		NeuralNetwork.Builder builder = new NeuralNetwork.Builder(() -> 0.5, (neurons, dXIndex, dYIndex) -> {
+			definitions.add(new Definitions(neurons, dXIndex, dYIndex));
+			return BuildStrategy.BASE.buildNetwork(neurons, dXIndex, dYIndex);
+		});
+		program.executeOn(builder);
+		builder.build();
+		return definitions.get(0);
+	}
+}
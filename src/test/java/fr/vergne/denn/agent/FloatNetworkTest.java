@@ -0,0 +1,100 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.FloatNetwork.Divergence;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.utils.Position.Bounds;
+
+class FloatNetworkTest {
+
+	private static final Bounds BOUNDS = Bounds.between(Position.at(-20, -20), Position.at(20, 20));
+
+	@Test
+	void testFloatNetworkDecidesLikeReferenceOnRepresentableWeights() {
+		Program program = new Program.Factory().positionMover(Position.at(5, -3));
+		NeuralNetwork reference = build(program, BuildStrategy.DEFAULT, new Random(0));
+		NeuralNetwork network = build(program, FloatNetwork.BUILD_DEFINITION, new Random(0));
+
+		for (int y = BOUNDS.min().y(); y <= BOUNDS.max().y(); y++) {
+			for (int x = BOUNDS.min().x(); x <= BOUNDS.max().x(); x++) {
+				assertEquals(fire(reference, x, y), fire(network, x, y), "At " + x + "," + y);
+			}
+		}
+		assertTrue(Divergence.measure(reference, BOUNDS).orElseThrow().isSafe());
+	}
+
+	@Test
+	void testDivergenceReportsPositionsWithDifferentMoves() {
+		// Rounded to 0.5 in float, so moves rounded up when X is -1 or 0
+		Program program = new Program.Builder()//
+				.createNeuronWithFixedSignal(0.4999999999)//
+				.createNeuronWithSumFunction()//
+				.moveTo(3)//
+				.readSignalFrom(0)//
+				.readSignalFrom(2)//
+				.setDXAt(3)//
+				.setDYAt(0)//
+				.build();
+		NeuralNetwork network = build(program, BuildStrategy.DEFAULT, new Random(0));
+
+		Divergence divergence = Divergence.measure(network, BOUNDS).orElseThrow();
+
+		assertFalse(divergence.isSafe());
+		assertEquals(2 * (BOUNDS.height() + 1), divergence.positions().size());
+		assertTrue(divergence.positions().stream().allMatch(position -> position.x() == -1 || position.x() == 0));
+		assertEquals(2.0 / (BOUNDS.width() + 1), divergence.rate(), 1e-12);
+	}
+
+	@Test
+	void testDivergenceIgnoresRandomNetworks() {
+		NeuralNetwork network = build(new Program.Factory().randomMover(), BuildStrategy.DEFAULT, new Random(0));
+
+		assertTrue(Divergence.measure(network, BOUNDS).isEmpty());
+	}
+
+	@Test
+	void testFloatNetworkFiresBatchLikeInTurn() {
+		Program program = new Program.Factory().createPerceptrons(//
+				inputs -> inputs.weighted(0.1, -0.2, 0.3, 1.5, -0.7), //
+				inputs -> inputs.weighted(-0.4, 0.5, -0.6, 0.8, 1.1)//
+		);
+		NeuralNetwork reference = build(program, FloatNetwork.BUILD_DEFINITION, new Random(0));
+		NeuralNetwork network = build(program, FloatNetwork.BUILD_DEFINITION, new Random(0));
+
+		Random random = new Random(0);
+		int count = 17;
+		double[] xs = random.doubles(count, -100, 100).toArray();
+		double[] ys = random.doubles(count, -100, 100).toArray();
+		double[] dxs = new double[count];
+		double[] dys = new double[count];
+		network.fireBatch(xs, ys, dxs, dys, count);
+
+		for (int sample = 0; sample < count; sample++) {
+			assertEquals(List.of(dxs[sample], dys[sample]), fire(reference, xs[sample], ys[sample]),
+					"Sample " + sample);
+		}
+		assertEquals(fire(reference, 1, 2), fire(network, 1, 2));
+	}
+
+	private static List<Double> fire(NeuralNetwork network, double x, double y) {
+		network.setXSignal(x);
+		network.setYSignal(y);
+		network.fire();
+		return List.of(network.dXSignal(), network.dYSignal());
+	}
+
+	private static NeuralNetwork build(Program program, BuildDefinition definition, Random random) {
+		NeuralNetwork.Builder builder = new NeuralNetwork.Builder(random::nextDouble, definition);
+		program.executeOn(builder);
+		return builder.build();
+	}
+}
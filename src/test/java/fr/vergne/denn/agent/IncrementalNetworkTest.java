@@ -0,0 +1,55 @@
+package fr.vergne.denn.agent;
+
+import static fr.vergne.denn.agent.NeuralNetworkBuildStrategyTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+
+class IncrementalNetworkTest {
+
+	@Test
+	void testIncrementalNetworkComputesLikeBaseOnPartialChanges() {
+		NeuralNetwork reference = BuildStrategy.BASE.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8, 4);
+		NeuralNetwork network = BuildStrategy.INCREMENTAL.buildNetwork(builtInDefinitions(new Random(0)::nextDouble),
+				8, 4);
+
+		List.of(new Inputs(0, 0), new Inputs(0, 0), new Inputs(12, 0), new Inputs(12, 58), new Inputs(12, 58),
+				new Inputs(-3.5, 58), new Inputs(-3.5, 7), new Inputs(-3.5, 7)).forEach(inputs -> {
+					inputs.apply(reference);
+					inputs.apply(network);
+					reference.fire();
+					network.fire();
+					assertEquals(Outputs.from(reference), Outputs.from(network), inputs.toString());
+				});
+	}
+
+	@Test
+	void testIncrementalNetworkFiresOnlyChangedNeurons() {
+		Random random = new Random(0);
+		NeuralNetwork.Builder builder = new NeuralNetwork.Builder(random::nextDouble, BuildStrategy.INCREMENTAL);
+		new Program.Factory().positionMover(Position.at(50, 50)).executeOn(builder);
+		IncrementalNetwork network = (IncrementalNetwork) builder.build();
+
+		network.setXSignal(10);
+		network.setYSignal(20);
+		network.fire();
+		long fullFire = network.firedNeuronsCount();
+
+		network.fire();
+		assertEquals(fullFire, network.firedNeuronsCount(), "Nothing to fire when staying");
+
+		network.setXSignal(11);
+		network.fire();
+		long xFire = network.firedNeuronsCount() - fullFire;
+		assertTrue(0 < xFire && xFire < fullFire, xFire + " neurons fired for X on " + fullFire);
+		assertEquals(39.0, network.dXSignal());
+		assertEquals(30.0, network.dYSignal());
+	}
+}
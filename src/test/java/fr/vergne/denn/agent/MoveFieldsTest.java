@@ -0,0 +1,164 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.terrain.Terrain;
+import fr.vergne.denn.utils.Position;
+
+class MoveFieldsTest {
+
+	private static final int SIZE = 10;
+
+	@Test
+	void testAgentOnMoveFieldDecidesLikeWithout() {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, SIZE * SIZE);
+		Program program = new Program.Factory().positionMover(Position.at(3, 7));
+		Agent reference = Agent.createFromProgram(createFactory(), program);
+		Agent cached = Agent.createFromProgram(createFactory(moveFields), program);
+
+		Random random = new Random(0);
+		for (int step = 0; step < 1000; step++) {
+			// Include positions out of the terrain, which are not cached
+			Position position = Position.at(random.nextInt(SIZE + 4) - 2, random.nextInt(SIZE + 4) - 2);
+			assertEquals(reference.decideNextPosition(position), cached.decideNextPosition(position),
+					"Step " + step);
+		}
+		assertTrue(cached.isDeterministic());
+		assertTrue(moveFields.hitsCount() > 0);
+		assertTrue(moveFields.missesCount() <= SIZE * SIZE);
+	}
+
+	static Stream<Program> deterministicPrograms() {
+		Program.Factory factory = new Program.Factory();
+		Terrain terrain = Terrain.createWithSize(SIZE, SIZE);
+		return Stream.of(//
+				factory.positionMover(Position.at(3, 7)), //
+				factory.centerMover(terrain), //
+				factory.cornerMover(terrain)//
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("deterministicPrograms")
+	void testMoveFieldFilledFromMoveMapDecidesLikeWithout(Program program) {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, SIZE * SIZE, true);
+		Agent reference = Agent.createFromProgram(createFactory(), program);
+		Agent cached = Agent.createFromProgram(createFactory(moveFields), program);
+
+		Random random = new Random(0);
+		for (int step = 0; step < 1000; step++) {
+			Position position = Position.at(random.nextInt(SIZE + 4) - 2, random.nextInt(SIZE + 4) - 2);
+			assertEquals(reference.decideNextPosition(position), cached.decideNextPosition(position),
+					"Step " + step);
+		}
+		assertEquals(1, moveFields.filledFieldsCount());
+		assertEquals(0, moveFields.missesCount());
+		assertTrue(moveFields.hitsCount() > 0);
+	}
+
+	@Test
+	void testRandomAgentDoesNotUseMoveField() {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, SIZE * SIZE);
+		Program program = new Program.Factory().randomMover();
+		Agent reference = Agent.createFromProgram(createFactory(), program);
+		Agent cached = Agent.createFromProgram(createFactory(moveFields), program);
+
+		for (int step = 0; step < 100; step++) {
+			Position position = Position.at(step % SIZE, step / SIZE % SIZE);
+			assertEquals(reference.decideNextPosition(position), cached.decideNextPosition(position),
+					"Step " + step);
+		}
+		assertFalse(cached.isDeterministic());
+		assertEquals(0, moveFields.hitsCount() + moveFields.missesCount());
+	}
+
+	@Test
+	void testAgentsWithSameChromosomeShareMoveField() {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, SIZE * SIZE);
+		NeuralNetwork.Factory networkFactory = createFactory(moveFields);
+		Program program = new Program.Factory().positionMover(Position.at(3, 7));
+		Agent agent1 = Agent.createFromProgram(networkFactory, program);
+		Agent agent2 = Agent.createFromProgram(networkFactory, program);
+
+		agent1.decideNextPosition(Position.at(1, 1));
+		agent2.decideNextPosition(Position.at(1, 1));
+
+		assertEquals(1, moveFields.fieldsCount());
+		assertEquals(1, moveFields.missesCount());
+		assertEquals(1, moveFields.hitsCount());
+	}
+
+	@Test
+	void testMoveFieldsRemainWithinBudget() {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, 2 * SIZE * SIZE);
+		NeuralNetwork.Factory networkFactory = createFactory(moveFields);
+		Program.Factory programFactory = new Program.Factory();
+		List<Program> programs = List.of(//
+				programFactory.positionMover(Position.at(0, 0)), //
+				programFactory.positionMover(Position.at(5, 5)), //
+				programFactory.positionMover(Position.at(9, 9))//
+		);
+		List<Agent> references = programs.stream().map(program -> Agent.createFromProgram(createFactory(), program))
+				.toList();
+		List<Agent> cached = programs.stream().map(program -> Agent.createFromProgram(networkFactory, program))
+				.toList();
+
+		Random random = new Random(0);
+		for (int step = 0; step < 300; step++) {
+			int agentIndex = random.nextInt(programs.size());
+			Position position = Position.at(random.nextInt(SIZE), random.nextInt(SIZE));
+			assertEquals(references.get(agentIndex).decideNextPosition(position),
+					cached.get(agentIndex).decideNextPosition(position), "Step " + step);
+			assertTrue(moveFields.fieldsCount() <= 2);
+		}
+		assertEquals(2, moveFields.maxFieldsCount());
+		assertTrue(moveFields.evictionsCount() > 0);
+	}
+
+	@Test
+	void testNewFieldEvictsOneFieldWhenAllAreReferenced() {
+		MoveFields moveFields = new MoveFields(SIZE, SIZE, 2 * SIZE * SIZE);
+		NeuralNetwork.Factory networkFactory = createFactory(moveFields);
+		Program.Factory programFactory = new Program.Factory();
+		Agent agent1 = Agent.createFromProgram(networkFactory, programFactory.positionMover(Position.at(0, 0)));
+		Agent agent2 = Agent.createFromProgram(networkFactory, programFactory.positionMover(Position.at(5, 5)));
+		Agent agent3 = Agent.createFromProgram(networkFactory, programFactory.positionMover(Position.at(9, 9)));
+		Position position = Position.at(1, 1);
+		for (Agent agent : List.of(agent1, agent2)) {
+			agent.decideNextPosition(position);
+			agent.decideNextPosition(position);// Hit, so referenced
+		}
+
+		agent3.decideNextPosition(position);
+		agent3.decideNextPosition(position);
+
+		assertEquals(1, moveFields.evictionsCount());
+		assertEquals(2, moveFields.fieldsCount());
+		assertEquals(3, moveFields.missesCount());
+		assertEquals(3, moveFields.hitsCount());
+	}
+
+	@Test
+	void testBudgetBelowOneFieldIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new MoveFields(SIZE, SIZE, SIZE * SIZE - 1));
+	}
+
+	private static NeuralNetwork.Factory createFactory() {
+		Random random = new Random(0);
+		return new NeuralNetwork.Factory(seed -> new NeuralNetwork.Builder(random::nextDouble), random);
+	}
+
+	private static NeuralNetwork.Factory createFactory(MoveFields moveFields) {
+		Random random = new Random(0);
+		return new NeuralNetwork.Factory(seed -> new NeuralNetwork.Builder(random::nextDouble), random, moveFields);
+	}
+}
@@ -0,0 +1,100 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.utils.Position.Bounds;
+
+class MoveMapTest {
+
+	static Stream<Integer> seeds() {
+		return IntStream.range(0, 30).boxed();
+	}
+
+	@ParameterizedTest
+	@MethodSource("seeds")
+	void testMoveMapHasSameMovesThanNetwork(int seed) {
+		Program program = randomDeterministicProgram(new Random(seed));
+		NeuralNetwork network = createFactory().execute(program);
+		NeuralNetwork reference = createFactory().execute(program);
+		Bounds bounds = Bounds.between(Position.at(-5, -3), Position.at(24, 26));
+
+		byte[] codes = MoveMap.analyse(network, bounds).orElseThrow().codes();
+
+		int width = bounds.width() + 1;
+		for (int y = bounds.min().y(); y <= bounds.max().y(); y++) {
+			for (int x = bounds.min().x(); x <= bounds.max().x(); x++) {
+				NeuralNetwork.AgentNetwork agentNetwork = reference.forAgent();
+				agentNetwork.setPosition(x, y);
+				agentNetwork.fire();
+				byte code = codes[(y - bounds.min().y()) * width + x - bounds.min().x()];
+				assertEquals(agentNetwork.getMoveCode(), code, "At " + Position.at(x, y));
+			}
+		}
+	}
+
+	@Test
+	void testMoveMapAnalysesFewerRectanglesThanPositions() {
+		Program program = new Program.Factory().positionMover(Position.at(50, 120));
+		NeuralNetwork network = createFactory().execute(program);
+		Bounds bounds = Bounds.between(Position.at(0, 0), Position.at(199, 199));
+
+		MoveMap moveMap = MoveMap.analyse(network, bounds).orElseThrow();
+
+		int positionsCount = 200 * 200;
+		assertEquals(positionsCount, moveMap.regions().stream()//
+				.mapToInt(region -> (region.bounds().width() + 1) * (region.bounds().height() + 1)).sum());
+		assertTrue(moveMap.analysesCount() < positionsCount / 10, moveMap.analysesCount() + " analyses");
+	}
+
+	@Test
+	void testRandomNetworkHasNoMoveMap() {
+		NeuralNetwork network = createFactory().execute(new Program.Factory().randomMover());
+		Bounds bounds = Bounds.between(Position.at(0, 0), Position.at(9, 9));
+
+		assertTrue(MoveMap.analyse(network, bounds).isEmpty());
+	}
+
+	private static Program randomDeterministicProgram(Random random) {
+		double[] specials = { 0, -0.0, Double.MAX_VALUE, -Double.MAX_VALUE, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.NaN };
+		Program.Builder builder = new Program.Builder();
+		int neuronsCount = 2;
+		for (int i = 0; i < 8; i++) {
+			switch (random.nextInt(5)) {
+			case 0 -> builder.createNeuronWithFixedSignal(random.nextInt(20) == 0//
+					? specials[random.nextInt(specials.length)]//
+					: (random.nextDouble() - 0.5) * 40);
+			case 1 -> builder.createNeuronWithSumFunction();
+			case 2 -> builder.createNeuronWithWeightedSumFunction(random.nextInt(20) == 0//
+					? specials[random.nextInt(specials.length)]//
+					: (random.nextDouble() - 0.5) * 2);
+			case 3 -> builder.createNeuronWithMinFunction();
+			case 4 -> builder.createNeuronWithMaxFunction();
+			}
+			int inputsCount = random.nextInt(4);
+			for (int j = 0; j < inputsCount; j++) {
+				builder.readSignalFrom(random.nextInt(neuronsCount));
+			}
+			neuronsCount++;
+		}
+		return builder//
+				.setDXAt(neuronsCount - 1 - random.nextInt(3))//
+				.setDYAt(neuronsCount - 1 - random.nextInt(3))//
+				.build();
+	}
+
+	private static NeuralNetwork.Factory createFactory() {
+		Random random = new Random(0);
+		return new NeuralNetwork.Factory(seed -> new NeuralNetwork.Builder(random::nextDouble), random);
+	}
+}
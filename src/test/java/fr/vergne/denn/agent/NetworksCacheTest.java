@@ -0,0 +1,292 @@
+package fr.vergne.denn.agent;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.adn.Chromosome;
+import fr.vergne.denn.agent.adn.Mutator;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.agent.adn.ProgramView;
+import fr.vergne.denn.utils.Position;
+
+class NetworksCacheTest {
+
+	private static final long BUDGET = 1024 * 1024;
+
+	static Stream<Program> programs() {
+		Program.Factory factory = new Program.Factory();
+		return Stream.of(//
+				factory.positionMover(Position.at(3, 7)), //
+				factory.randomMover(), //
+				factory.createPerceptrons(//
+						inputs -> inputs.weighted(0.1, -0.2, 0.3, 1.5, -0.7), //
+						inputs -> inputs.weighted(-0.4, 0.5, -0.6, 0.8, 1.1)//
+				)//
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("programs")
+	void testCachedNetworksComputeLikeBuiltOnes(Program program) {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory referenceFactory = createFactory(BuildStrategy.DEFAULT);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+		Chromosome chromosome = new Chromosome(program.serialize());
+
+		// Networks built in turn, so each one has the next random source
+		List<NeuralNetwork> references = Stream.generate(() -> referenceFactory.execute(chromosome)).limit(3).toList();
+		List<NeuralNetwork> networks = Stream.generate(() -> cachedFactory.execute(chromosome)).limit(3).toList();
+
+		Random random = new Random(0);
+		for (int step = 0; step < 100; step++) {
+			// Fire in a random order, so shared random sources would be noticed
+			int index = random.nextInt(networks.size());
+			double x = random.nextInt(20) - 10;
+			double y = random.nextInt(20) - 10;
+			assertEquals(fire(references.get(index), x, y), fire(networks.get(index), x, y), "Step " + step);
+		}
+		assertEquals(1, cache.missesCount());
+		assertEquals(2, cache.hitsCount());
+		assertEquals(2, cache.structuresCount());// Its structure and its fingerprint
+	}
+
+	@ParameterizedTest
+	@MethodSource("programs")
+	void testWeightsMutantsComputeLikeBuiltOnes(Program program) {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory referenceFactory = createFactory(BuildStrategy.DEFAULT);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+		Chromosome parent = new Chromosome(program.serialize());
+		Mutator mutator = Mutator.onWeights(new Random(0), 0.05);
+		List<Chromosome> chromosomes = Stream.concat(Stream.of(parent), //
+				Stream.generate(() -> mutator.mutate(parent)).limit(10))//
+				.toList();
+
+		for (Chromosome chromosome : chromosomes) {
+			assertComputeLike(referenceFactory.execute(chromosome), cachedFactory.execute(chromosome));
+		}
+		// The second one compiles the template
+		assertEquals(2, cache.missesCount());
+		assertEquals(9, cache.hitsCount() + cache.patchesCount());
+	}
+
+	static Stream<Double> weights() {
+		return Stream.of(0.0, 1.0, -2.5, Double.POSITIVE_INFINITY, Double.NaN);
+	}
+
+	@ParameterizedTest
+	@MethodSource("weights")
+	void testPatchedNetworksComputeLikeBuiltOnes(double weight) {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory referenceFactory = createFactory(BuildStrategy.DEFAULT);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+		Chromosome parent = new Chromosome(weightedProgram().serialize());
+		Chromosome sibling = withWeights(parent, 0.25);// Compiles the template
+		Chromosome child = withWeights(parent, weight);
+
+		for (Chromosome chromosome : List.of(parent, sibling, child)) {
+			assertComputeLike(referenceFactory.execute(chromosome), cachedFactory.execute(chromosome));
+		}
+		assertEquals(2, cache.missesCount());
+		assertEquals(1, cache.patchesCount());
+	}
+
+	@Test
+	void testTemplateIsCompiledForSecondChromosomeOnly() {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+		Chromosome parent = new Chromosome(weightedProgram().serialize());
+
+		cachedFactory.execute(parent);
+		assertEquals(2, cache.structuresCount());// Its structure and its fingerprint
+
+		cachedFactory.execute(withWeights(parent, 0.25));
+		assertEquals(3, cache.structuresCount());// Both structures and the template
+		assertEquals(2, cache.missesCount());
+		assertEquals(0, cache.patchesCount());
+
+		cachedFactory.execute(withWeights(parent, 0.5));
+		assertEquals(2, cache.missesCount());
+		assertEquals(1, cache.patchesCount());
+	}
+
+	private static Chromosome withWeights(Chromosome chromosome, double weight) {
+		ProgramView.Writable program = ProgramView.of(chromosome).copy();
+		for (int codeIndex = 0; codeIndex < program.codesCount(); codeIndex++) {
+			switch (program.operation(codeIndex)) {
+			case CREATE_WITH_WEIGHTED_SUM_FUNCTION:
+			case CREATE_WITH_DOT_PRODUCT_FUNCTION:
+			case WEIGHT:
+				program.setValue(codeIndex, weight * codeIndex);
+				break;
+			default:
+				break;
+			}
+		}
+		return program.toChromosome();
+	}
+
+	@Test
+	void testStructuralChangesAreNotPatched() {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+		Chromosome parent = new Chromosome(weightedProgram().serialize());
+		ProgramView.Writable child = ProgramView.of(parent).copy();
+		child.setValue(0, 3);// Other fixed signal
+
+		cachedFactory.execute(parent);
+		cachedFactory.execute(child.toChromosome());
+
+		assertEquals(2, cache.missesCount());
+		assertEquals(0, cache.patchesCount());
+	}
+
+	/**
+	 * Weighted neurons which the optimizer would fold, merge or truncate,
+	 * depending on their weights.
+	 */
+	private static Program weightedProgram() {
+		return new Program.Builder()//
+				.createNeuronWithFixedSignal(2)// 2
+				.createNeuronWithWeightedSumFunction(0.5).moveTo(3).readSignalFrom(2)// Constant
+				.createNeuronWithWeightedSumFunction(0).moveTo(4).readSignalFrom(0)// Zero
+				.createNeuronWithWeightedSumFunction(0.5).moveTo(5).readSignalFrom(0)//
+				.createNeuronWithWeightedSumFunction(0.5).moveTo(6).readSignalFrom(0)// Same as 5
+				.createNeuronWithDotProductFunction(1, 2, 3).moveTo(7).readSignalFrom(3).readSignalFrom(4)
+				.readSignalFrom(5)//
+				.createNeuronWithDotProductFunction(1, 2).moveTo(8).readSignalFrom(6)// Weight without input
+				.createNeuronWithSumFunction().moveTo(9).readSignalFrom(7).readSignalFrom(8).readSignalFrom(1)//
+				.createNeuronWithWeightedSumFunction(1).moveTo(10).readSignalFrom(9)// Pruned
+				.setDXAt(9)//
+				.setDYAt(6)//
+				.build();
+	}
+
+	@Test
+	void testStructuresRemainWithinBudget() {
+		Program.Factory programFactory = new Program.Factory();
+		List<Chromosome> chromosomes = Stream.of(Position.at(0, 0), Position.at(5, 5), Position.at(9, 9))//
+				.map(programFactory::positionMover)//
+				.map(program -> new Chromosome(program.serialize()))//
+				.toList();
+		NetworksCache sizer = new NetworksCache(BUDGET);
+		createFactory(BuildStrategy.DEFAULT, sizer).execute(chromosomes.get(0));
+		NetworksCache cache = new NetworksCache(2 * sizer.usedBytes());
+		NeuralNetwork.Factory referenceFactory = createFactory(BuildStrategy.DEFAULT);
+		NeuralNetwork.Factory cachedFactory = createFactory(BuildStrategy.DEFAULT, cache);
+
+		Random random = new Random(0);
+		for (int step = 0; step < 100; step++) {
+			Chromosome chromosome = chromosomes.get(random.nextInt(chromosomes.size()));
+			assertEquals(fire(referenceFactory.execute(chromosome), 1, 2), fire(cachedFactory.execute(chromosome), 1, 2),
+					"Step " + step);
+			assertTrue(cache.structuresCount() <= 4);// Structures and templates
+			assertTrue(cache.usedBytes() <= cache.budgetBytes());
+		}
+		assertTrue(cache.evictionsCount() > 0);
+		assertTrue(cache.hitsCount() > 0);
+	}
+
+	@Test
+	void testNetworksWithoutStructureAreNotCached() {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory factory = createFactory(BuildStrategy.BASE, cache);
+		Chromosome chromosome = new Chromosome(new Program.Factory().positionMover(Position.at(3, 7)).serialize());
+
+		factory.execute(chromosome);
+		factory.execute(chromosome);
+
+		assertEquals(2, cache.missesCount());
+		assertEquals(0, cache.hitsCount());
+		assertEquals(0, cache.structuresCount());
+	}
+
+	static Stream<BuildDefinition> otherDefinitions() {
+		return Stream.of(BuildStrategy.HIDDEN_CLASS, BuildStrategy.TIERED, BuildStrategy.INCREMENTAL,
+				FloatNetwork.BUILD_DEFINITION);
+	}
+
+	@ParameterizedTest
+	@MethodSource("otherDefinitions")
+	void testNetworksOfOtherStrategiesAreNotCached(BuildDefinition definition) {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		NeuralNetwork.Factory referenceFactory = createFactory(definition);
+		NeuralNetwork.Factory cachedFactory = createFactory(definition, cache);
+		Chromosome chromosome = new Chromosome(weightedProgram().serialize());
+
+		for (int index = 0; index < 3; index++) {
+			NeuralNetwork reference = referenceFactory.execute(chromosome);
+			NeuralNetwork network = cachedFactory.execute(chromosome);
+			assertEquals(kindOf(reference), kindOf(network), "Network " + index);
+			assertComputeLike(reference, network);
+		}
+		assertEquals(3, cache.missesCount());
+		assertEquals(0, cache.hitsCount() + cache.patchesCount());
+		assertEquals(0, cache.structuresCount());
+	}
+
+	@Test
+	void testStrategiesDoNotShareStructures() {
+		NetworksCache cache = new NetworksCache(BUDGET);
+		Chromosome chromosome = new Chromosome(weightedProgram().serialize());
+
+		createFactory(BuildStrategy.OPTIMIZED, cache).execute(chromosome);
+		NeuralNetwork network = createFactory(BuildStrategy.COMPILED, cache).execute(chromosome);
+
+		assertEquals(2, cache.missesCount());
+		assertEquals(0, cache.hitsCount());
+		assertTrue(network instanceof CompiledNetwork, network.getClass().toString());
+	}
+
+	@Test
+	void testEmptyBudgetIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new NetworksCache(0));
+	}
+
+	private static void assertComputeLike(NeuralNetwork reference, NeuralNetwork network) {
+		for (int x = -2; x <= 2; x++) {
+			for (int y = -2; y <= 2; y++) {
+				// Zero weights folded by the optimizer give 0 where computing may give -0
+				List<Double> expected = fire(reference, x, y);
+				List<Double> actual = fire(network, x, y);
+				assertEquals(expected.get(0), actual.get(0), 0, "dX at " + x + "," + y);
+				assertEquals(expected.get(1), actual.get(1), 0, "dY at " + x + "," + y);
+			}
+		}
+	}
+
+	private static List<Double> fire(NeuralNetwork network, double x, double y) {
+		network.setXSignal(x);
+		network.setYSignal(y);
+		network.fire();
+		return List.of(network.dXSignal(), network.dYSignal());
+	}
+
+	private static Class<?> kindOf(NeuralNetwork network) {
+		Class<?> type = network.getClass();
+		return type.isHidden() ? type.getSuperclass() : type;
+	}
+
+	private static LongFunction<Neural.Builder<NeuralNetwork>> createBuilders(BuildDefinition strategy) {
+		return seed -> new NeuralNetwork.Builder(new BlockRand(seed), strategy);
+	}
+
+	private static NeuralNetwork.Factory createFactory(BuildDefinition strategy) {
+		return new NeuralNetwork.Factory(createBuilders(strategy), new Random(0));
+	}
+
+	private static NeuralNetwork.Factory createFactory(BuildDefinition strategy, NetworksCache cache) {
+		MoveFields moveFields = new MoveFields(1, 1, 1);
+		return new NeuralNetwork.Factory(createBuilders(strategy), new Random(0), moveFields, cache);
+	}
+}
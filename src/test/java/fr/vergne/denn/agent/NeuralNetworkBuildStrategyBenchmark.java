@@ -1,5 +1,6 @@
 package fr.vergne.denn.agent;
 
+import static fr.vergne.denn.agent.NeuralNetwork.Builder.*;
 import static fr.vergne.denn.agent.NeuralNetworkBuildStrategyTest.*;
 import static java.util.Collections.*;
 import static java.util.Map.*;
@@ -44,32 +45,32 @@ public class NeuralNetworkBuildStrategyBenchmark {
 		public final NonUsedNeuron x = new NonUsedNeuron();
 		public final NonUsedNeuron y = new NonUsedNeuron();
 
-		@Setup(Level.Invocation)
+		@Setup(Level.Trial)// Build once, like agents firing the same network on each move
 		public void setUp() {
 			// Network which goes to position (50,50)
 			List<Neuron> neurons = List.of(//
 					// Inputs
 					x, //
 					y, //
-					Neuron.onSignalSupplier(() -> 1.0), //
-					Neuron.onSignalSupplier(() -> random.nextDouble()), //
-					Neuron.onSignalSupplier(() -> random.nextDouble()), //
+					Neuron.onInputsFunction(fixedSignal(1.0)), //
+					Neuron.onInputsFunction(randomSignal(random::nextDouble)), //
+					Neuron.onInputsFunction(randomSignal(random::nextDouble)), //
 					// Weights dX
-					Neuron.onInputsFunction(inputs -> inputs.sum() * -1.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 50.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
+					Neuron.onInputsFunction(weightedSumFunction(-1.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(50.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
 					// dX
-					Neuron.onInputsFunction(inputs -> inputs.sum()), //
+					Neuron.onInputsFunction(sumFunction()), //
 					// Weights dY
-					Neuron.onInputsFunction(inputs -> inputs.sum() * -1.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 50.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
-					Neuron.onInputsFunction(inputs -> inputs.sum() * 0.0), //
+					Neuron.onInputsFunction(weightedSumFunction(-1.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(50.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
+					Neuron.onInputsFunction(weightedSumFunction(0.0)), //
 					// dY
-					Neuron.onInputsFunction(inputs -> inputs.sum()) //
+					Neuron.onInputsFunction(sumFunction()) //
 			);
 			Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
 					// Inputs
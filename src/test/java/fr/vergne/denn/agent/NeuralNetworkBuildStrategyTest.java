@@ -1,24 +1,31 @@
 package fr.vergne.denn.agent;
 
+import static fr.vergne.denn.agent.NeuralNetwork.Builder.*;
 import static java.util.Collections.*;
 import static java.util.Map.*;
 import static java.util.stream.Collectors.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
 import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.Rand;
+import fr.vergne.denn.agent.NeuralNetwork.NeuralFunction;
 import fr.vergne.denn.agent.NeuralNetwork.Neuron;
 
 class NeuralNetworkBuildStrategyTest {
@@ -153,6 +160,130 @@ class NeuralNetworkBuildStrategyTest {
 		new Trial(new Inputs(123, 321), new Outputs(444, 222)).test(network);
 	}
 
+	@ParameterizedTest
+	@MethodSource("buildStrategies")
+	void testStrategyComputePrimitiveNeuron(BuildStrategy strategy) {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onSingleInput(input -> input * 2), //
+				Neuron.onSingleInput(input -> -input)//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, List.of(0)), //
+				entry(3, List.of(1))//
+		);
+		NeuralNetwork network = strategy.buildNetwork(buildDefinitions(neurons, inputsMap), 2, 3);
+
+		new Trial(new Inputs(123, 321), new Outputs(246, -321)).test(network);
+	}
+
+	@Test
+	void testBuiltInFunctionsComputeSameOnPrimitivesAndStreams() {
+		double[] inputs = { 3, -1.5, 0.1, 0.2, 1e20, -1e20, 7 };
+		for (NeuralFunction function : List.of(sumFunction(), weightedSumFunction(-0.3), minFunction(),
+				maxFunction(), fixedSignal(5))) {
+			for (int to = 0; to <= inputs.length; to++) {
+				double expected = function.compute(Arrays.stream(inputs, 0, to));
+				assertEquals(expected, function.compute(inputs, 0, to), function + " on " + to + " inputs");
+			}
+		}
+	}
+
+	static Stream<Inputs> cancellingInputs() {
+		return Stream.of(//
+				new Inputs(1e16, -1e16), //
+				new Inputs(1e-16, 1e-16), //
+				new Inputs(1e308, 1e308), //
+				new Inputs(0.1, 0.2), //
+				new Inputs(3, -7)//
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("cancellingInputs")
+	void testCompiledSumsLikeBaseUpToRounding(Inputs inputs) {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(0.3)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(0.5))//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0, 2, 1)), //
+				entry(4, List.of(0, 2, 1))//
+		);
+		List<NeuronDefinition> definitions = buildDefinitions(neurons, inputsMap);
+		NeuralNetwork base = BuildStrategy.BASE.buildNetwork(definitions, 3, 4);
+		NeuralNetwork compiled = BuildStrategy.COMPILED.buildNetwork(definitions, 3, 4);
+
+		// One rounding error per input at most
+		double delta = 3 * Math.ulp(Math.abs(inputs.x()) + 0.3 + Math.abs(inputs.y()));
+		for (int fire = 0; fire < 2; fire++) {
+			for (NeuralNetwork network : List.of(base, compiled)) {
+				inputs.apply(network);
+				network.fire();
+			}
+			assertEquals(base.dXSignal(), compiled.dXSignal(), delta, inputs + ", fire " + fire);
+			assertEquals(base.dYSignal(), compiled.dYSignal(), delta, inputs + ", fire " + fire);
+		}
+	}
+
+	@Test
+	void testCompiledSumsAreInInputOrder() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(0.3)), //
+				Neuron.onInputsFunction(sumFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0, 2, 1))//
+		);
+		NeuralNetwork network = BuildStrategy.COMPILED.buildNetwork(buildDefinitions(neurons, inputsMap), 3, 3);
+		new Inputs(0.1, 0.2).apply(network);
+		network.fire();
+		network.fire();
+
+		// Accepted difference with BASE, which gives 0.6
+		assertEquals(0.6000000000000001, network.dXSignal());
+	}
+
+	@Test
+	void testBaseSumsAreCompensated() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(0.3)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(2))//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0, 2, 1)), //
+				entry(4, List.of(0, 2, 1))//
+		);
+		NeuralNetwork network = BuildStrategy.BASE.buildNetwork(buildDefinitions(neurons, inputsMap), 3, 4);
+		new Inputs(0.1, 0.2).apply(network);
+		network.fire();
+		network.fire();
+
+		// Summed in input order, it would give 0.6000000000000001
+		assertEquals(0.6, network.dXSignal());
+		assertEquals(1.2, network.dYSignal());
+	}
+
 	@ParameterizedTest
 	@MethodSource("buildStrategies")
 	void testStrategyFollowsDependencies(BuildStrategy strategy) {
@@ -190,6 +321,137 @@ class NeuralNetworkBuildStrategyTest {
 		assertEquals(List.of(1.0, 3.0, 7.0, 15.0, 31.0, 63.0), signals);
 	}
 
+	@ParameterizedTest
+	@MethodSource("buildStrategies")
+	void testStrategyComputesBuiltInFunctionsLikeBase(BuildStrategy strategy) {
+		NeuralNetwork reference = BuildStrategy.BASE.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8, 4);
+		NeuralNetwork network = strategy.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8, 4);
+
+		List.of(new Inputs(0, 0), new Inputs(12, 58), new Inputs(-3.5, 7), new Inputs(12, 58)).forEach(inputs -> {
+			inputs.apply(reference);
+			inputs.apply(network);
+			reference.fire();
+			network.fire();
+			assertEquals(Outputs.from(reference), Outputs.from(network), inputs.toString());
+		});
+	}
+
+	@ParameterizedTest
+	@MethodSource("buildStrategies")
+	void testStrategyComputesOverflowingZeroWeightSumLikeBase(BuildStrategy strategy) {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(1e308)), //
+				Neuron.onInputsFunction(fixedSignal(1e308)), //
+				Neuron.onInputsFunction(fixedSignal(1)), //
+				Neuron.onInputsFunction(weightedSumFunction(0)), //
+				Neuron.onInputsFunction(maxFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, emptyList()), //
+				entry(4, emptyList()), //
+				entry(5, List.of(0, 2, 3)), // 0 * infinity, so NaN
+				entry(6, List.of(5, 4))//
+		);
+		NeuralNetwork reference = BuildStrategy.BASE.buildNetwork(buildDefinitions(neurons, inputsMap), 6, 6);
+		NeuralNetwork network = strategy.buildNetwork(buildDefinitions(neurons, inputsMap), 6, 6);
+
+		for (int fire = 0; fire < 2; fire++) {
+			for (NeuralNetwork net : List.of(reference, network)) {
+				new Inputs(3, 3).apply(net);
+				net.fire();
+			}
+			assertEquals(Double.NaN, reference.dXSignal(), "Fire " + fire);
+			assertEquals(Outputs.from(reference), Outputs.from(network), "Fire " + fire);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("buildStrategies")
+	void testStrategyFiresBatchLikeSuccessiveFires(BuildStrategy strategy) {
+		double[] xs = { 0, 12, -3.5, 12, 5 };
+		double[] ys = { 0, 58, 7, 58, -1 };
+		for (Function<Rand, List<NeuronDefinition>> definitions : List.<Function<Rand, List<NeuronDefinition>>>of(
+				NeuralNetworkBuildStrategyTest::builtInDefinitions,
+				NeuralNetworkBuildStrategyTest::feedForwardDefinitions)) {
+			NeuralNetwork reference = strategy.buildNetwork(definitions.apply(new Random(0)::nextDouble), 8, 4);
+			NeuralNetwork network = strategy.buildNetwork(definitions.apply(new Random(0)::nextDouble), 8, 4);
+
+			double[] dXs = new double[xs.length];
+			double[] dYs = new double[xs.length];
+			network.fireBatch(xs, ys, dXs, dYs, xs.length);
+
+			for (int i = 0; i < xs.length; i++) {
+				Inputs inputs = new Inputs(xs[i], ys[i]);
+				inputs.apply(reference);
+				reference.fire();
+				assertEquals(Outputs.from(reference), new Outputs(dXs[i], dYs[i]), inputs.toString());
+			}
+			// Batch leaves the network as after its last fire
+			reference.fire();
+			network.fire();
+			assertEquals(Outputs.from(reference), Outputs.from(network));
+		}
+	}
+
+	static List<NeuronDefinition> feedForwardDefinitions(Rand random) {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(3)), //
+				Neuron.onInputsFunction(weightedSumFunction(-2)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(minFunction()), //
+				Neuron.onInputsFunction(randomSignal(random)), //
+				Neuron.onInputsFunction(maxFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(0.5))//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0)), //
+				entry(4, List.of(2, 3, 1)), //
+				entry(5, List.of(0, 1, 2)), //
+				entry(6, emptyList()), //
+				entry(7, List.of(6, 3)), //
+				entry(8, List.of(4, 5, 7))//
+		);
+		return new ArrayList<>(buildDefinitions(neurons, inputsMap));
+	}
+
+	static List<NeuronDefinition> builtInDefinitions(Rand random) {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(3)), //
+				Neuron.onInputsFunction(weightedSumFunction(-2)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(minFunction()), //
+				Neuron.onInputsFunction(maxFunction()), //
+				Neuron.onInputsFunction(maxFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(0.5)), //
+				Neuron.onInputsFunction(randomSignal(random))//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0)), //
+				entry(4, List.of(2, 3, 7)), // Read later neuron 7 from previous fire
+				entry(5, List.of(0, 1, 2)), //
+				entry(6, emptyList()), //
+				entry(7, List.of(1, 3, 9)), //
+				entry(8, List.of(4, 5, 6)), //
+				entry(9, emptyList())//
+		);
+		return new ArrayList<>(buildDefinitions(neurons, inputsMap));
+	}
+
 	private UnaryOperator<Double> computeAndStore(List<Double> signals, int signalIndex,
 			UnaryOperator<Double> computer) {
 		return input -> {
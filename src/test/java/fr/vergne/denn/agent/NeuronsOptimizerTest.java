@@ -0,0 +1,227 @@
+package fr.vergne.denn.agent;
+
+import static fr.vergne.denn.agent.NeuralNetwork.Builder.*;
+import static fr.vergne.denn.agent.NeuralNetworkBuildStrategyTest.*;
+import static java.util.Collections.*;
+import static java.util.Map.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.CompiledNetwork.Structure;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron;
+import fr.vergne.denn.agent.NeuronsOptimizer.Optimization;
+import fr.vergne.denn.agent.adn.Program;
+
+class NeuronsOptimizerTest {
+
+	@Test
+	void testOptimizerFoldsConstantNeurons() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(2)), //
+				Neuron.onInputsFunction(fixedSignal(3)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(-0.5)), //
+				Neuron.onInputsFunction(maxFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, emptyList()), //
+				entry(4, List.of(2, 3)), //
+				entry(5, List.of(4, 2)), //
+				entry(6, List.of(5, 0))//
+		);
+
+		Optimization optimization = NeuronsOptimizer.optimize(buildDefinitions(neurons, inputsMap), 6, 5);
+
+		assertEquals(2, optimization.foldedNeuronsCount());
+		assertEquals(List.of(), optimization.neuronsDefinitions().get(5).inputIndexes());
+		assertEquals(List.of(5, 0), optimization.neuronsDefinitions().get(6).inputIndexes());
+		assertBehavesLikeCompiled(neurons, inputsMap, 6, 5);
+	}
+
+	@Test
+	void testOptimizerRemovesZeroWeightedSums() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(1)), //
+				Neuron.onInputsFunction(randomSignal(new Random(0)::nextDouble)), //
+				Neuron.onInputsFunction(weightedSumFunction(0)), //
+				Neuron.onInputsFunction(weightedSumFunction(0)), //
+				Neuron.onInputsFunction(weightedSumFunction(2)), //
+				Neuron.onInputsFunction(sumFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, emptyList()), //
+				entry(4, List.of(0)), //
+				entry(5, List.of(3)), //
+				entry(6, List.of(1)), //
+				entry(7, List.of(4, 5, 6))//
+		);
+
+		Optimization optimization = NeuronsOptimizer.optimize(buildDefinitions(neurons, inputsMap), 7, 6);
+
+		assertEquals(2, optimization.foldedNeuronsCount());
+		assertEquals(List.of(6), optimization.neuronsDefinitions().get(7).inputIndexes());
+		assertEquals(4, CompiledNetwork.compileOptimized(buildDefinitions(neurons, inputsMap), 7, 6)
+				.prunedNeuronsCount());
+	}
+
+	@Test
+	void testOptimizerDoesNotRemoveZeroWeightedSumsOnComputedSignals() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(weightedSumFunction(Double.MAX_VALUE)), //
+				Neuron.onInputsFunction(weightedSumFunction(0)), //
+				Neuron.onInputsFunction(sumFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, List.of(0)), //
+				entry(3, List.of(2)), // Infinity * 0 = NaN
+				entry(4, List.of(3, 1))//
+		);
+
+		Optimization optimization = NeuronsOptimizer.optimize(buildDefinitions(neurons, inputsMap), 4, 3);
+
+		assertEquals(0, optimization.foldedNeuronsCount());
+		assertBehavesLikeCompiled(neurons, inputsMap, 4, 3);
+	}
+
+	@Test
+	void testOptimizerMergesIdenticalNeurons() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(-1)), //
+				Neuron.onInputsFunction(minFunction()), //
+				Neuron.onInputsFunction(fixedSignal(-1)), //
+				Neuron.onInputsFunction(minFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(0, 2)), //
+				entry(4, emptyList()), //
+				entry(5, List.of(0, 4))//
+		);
+
+		Optimization optimization = NeuronsOptimizer.optimize(buildDefinitions(neurons, inputsMap), 3, 5);
+
+		assertEquals(2, optimization.mergedNeuronsCount());
+		assertEquals(3, optimization.dXIndex());
+		assertEquals(3, optimization.dYIndex());
+		assertBehavesLikeCompiled(neurons, inputsMap, 3, 5);
+	}
+
+	@Test
+	void testOptimizerForAnyWeightsKeepsWeightedNeurons() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(2)), //
+				Neuron.onInputsFunction(weightedSumFunction(0.5)), //
+				Neuron.onInputsFunction(weightedSumFunction(0)), //
+				Neuron.onInputsFunction(dotProductFunction(1, 2)), //
+				Neuron.onInputsFunction(dotProductFunction(1, 2)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(sumFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, List.of(2)), //
+				entry(4, List.of(0)), //
+				entry(5, List.of(0, 1)), //
+				entry(6, List.of(0, 1)), //
+				entry(7, List.of(3, 4)), //
+				entry(8, List.of(5, 6))//
+		);
+		List<NeuronDefinition> definitions = buildDefinitions(neurons, inputsMap);
+
+		Optimization optimization = NeuronsOptimizer.optimizeForAnyWeights(definitions, 7, 8);
+
+		assertEquals(0, optimization.foldedNeuronsCount());
+		assertEquals(0, optimization.mergedNeuronsCount());
+		for (int index = 3; index <= 6; index++) {
+			assertSame(definitions.get(index).neuron(), optimization.neuronsDefinitions().get(index).neuron());
+		}
+		assertEquals(List.of(5, 6), optimization.neuronsDefinitions().get(8).inputIndexes());
+	}
+
+	@Test
+	void testOptimizerPreservesReadingOfLaterNeurons() {
+		// Neuron 2 reads neuron 3, thus 0 on the first fire
+		// Neuron 4 is like neuron 2, but reads neuron 3 after its fire
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(weightedSumFunction(2)), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(weightedSumFunction(2))//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, List.of(3)), //
+				entry(3, List.of(0)), //
+				entry(4, List.of(3))//
+		);
+
+		Optimization optimization = NeuronsOptimizer.optimize(buildDefinitions(neurons, inputsMap), 2, 4);
+
+		assertEquals(0, optimization.mergedNeuronsCount());
+		assertBehavesLikeCompiled(neurons, inputsMap, 2, 4);
+	}
+
+	@Test
+	void testOptimizerReducesNonMoverToConstant() {
+		Structure[] structure = { null };
+		NeuralNetwork.Builder builder = new NeuralNetwork.Builder(new Random(0)::nextDouble,
+				(neuronsDefinitions, dXIndex, dYIndex) -> {
+					structure[0] = CompiledNetwork.compileOptimized(neuronsDefinitions, dXIndex, dYIndex);
+					return structure[0].instantiate();
+				});
+		new Program.Factory().nonMover().executeOn(builder);
+		NeuralNetwork network = builder.build();
+
+		assertEquals(3, structure[0].size());// X, Y, and a single zero for both dX and dY
+		network.setXSignal(5);
+		network.setYSignal(8);
+		network.fire();
+		assertEquals(new Outputs(0, 0), Outputs.from(network));
+	}
+
+	private static void assertBehavesLikeCompiled(List<Neuron> neurons, Map<Integer, List<Integer>> inputsMap,
+			int dXIndex, int dYIndex) {
+		List<NeuronDefinition> definitions = buildDefinitions(neurons, inputsMap);
+		NeuralNetwork reference = BuildStrategy.COMPILED.buildNetwork(definitions, dXIndex, dYIndex);
+		NeuralNetwork optimized = BuildStrategy.OPTIMIZED.buildNetwork(definitions, dXIndex, dYIndex);
+
+		List.of(new Inputs(1, 2), new Inputs(-3, 5), new Inputs(7, 0)).forEach(inputs -> {
+			inputs.apply(reference);
+			inputs.apply(optimized);
+			reference.fire();
+			optimized.fire();
+			assertEquals(Outputs.from(reference), Outputs.from(optimized), inputs.toString());
+		});
+	}
+}
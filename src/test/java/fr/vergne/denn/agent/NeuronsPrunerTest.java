@@ -0,0 +1,79 @@
+package fr.vergne.denn.agent;
+
+import static fr.vergne.denn.agent.NeuralNetwork.Builder.*;
+import static fr.vergne.denn.agent.NeuralNetworkBuildStrategyTest.*;
+import static java.util.Collections.*;
+import static java.util.Map.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.NeuronDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Neuron;
+import fr.vergne.denn.agent.NeuronsPruner.Pruning;
+
+class NeuronsPrunerTest {
+
+	@Test
+	void testPrunerRemovesNeuronsWithoutImpactOnOutputs() {
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(fixedSignal(1)), //
+				Neuron.onInputsFunction(fixedSignal(5)), // Orphan
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(sumFunction())// Orphan reading others
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, emptyList()), //
+				entry(3, emptyList()), //
+				entry(4, List.of(0, 2)), //
+				entry(5, List.of(3, 4))//
+		);
+
+		Pruning pruning = NeuronsPruner.prune(buildDefinitions(neurons, inputsMap), 4, 1);
+
+		assertEquals(2, pruning.prunedNeuronsCount());
+		assertEquals(4, pruning.neuronsDefinitions().size());
+		assertEquals(3, pruning.dXIndex());
+		assertEquals(1, pruning.dYIndex());
+		assertEquals(List.of(0, 2), pruning.neuronsDefinitions().get(3).inputIndexes());
+	}
+
+	@Test
+	void testPrunerPreservesReadingOfLaterNeurons() {
+		// Neuron 2 reads neuron 4, thus the signal of the previous fire
+		List<Neuron> neurons = List.of(//
+				new NonUsedNeuron(), //
+				new NonUsedNeuron(), //
+				Neuron.onInputsFunction(sumFunction()), //
+				Neuron.onInputsFunction(fixedSignal(5)), // Orphan
+				Neuron.onInputsFunction(sumFunction())//
+		);
+		Map<Integer, List<Integer>> inputsMap = Map.ofEntries(//
+				entry(0, emptyList()), //
+				entry(1, emptyList()), //
+				entry(2, List.of(4)), //
+				entry(3, emptyList()), //
+				entry(4, List.of(0))//
+		);
+		List<NeuronDefinition> definitions = buildDefinitions(neurons, inputsMap);
+		NeuralNetwork reference = BuildStrategy.COMPILED.buildNetwork(definitions, 2, 4);
+		NeuralNetwork pruned = BuildStrategy.PRUNED.buildNetwork(definitions, 2, 4);
+
+		for (double x : List.of(1.0, 2.0, 3.0)) {
+			Inputs inputs = new Inputs(x, 0);
+			inputs.apply(reference);
+			inputs.apply(pruned);
+			reference.fire();
+			pruned.fire();
+			assertEquals(Outputs.from(reference), Outputs.from(pruned), "Input = " + x);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package fr.vergne.denn.agent;
+
+import static java.util.stream.Collectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildDefinition;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+
+class PopulationEvaluatorTest {
+
+	@Test
+	void testEvaluatorDecidesLikeAgentsInTurn() {
+		List<Agent> reference = createPopulation(new Random(0));
+		List<Agent> grouped = createPopulation(new Random(0));
+		PopulationEvaluator evaluator = new PopulationEvaluator();
+
+		Random positionsRandom = new Random(0);
+		List<Position> positions = reference.stream()//
+				.map(agent -> Position.at(positionsRandom.nextInt(100), positionsRandom.nextInt(100)))//
+				.collect(toList());
+		for (int step = 0; step < 10; step++) {
+			List<Position> expected = new ArrayList<>(positions.size());
+			for (int agentIndex = 0; agentIndex < reference.size(); agentIndex++) {
+				expected.add(reference.get(agentIndex).decideNextPosition(positions.get(agentIndex)));
+			}
+
+			List<Position> actual = evaluator.decideNextPositions(grouped, positions);
+
+			assertEquals(expected, actual, "Step " + step);
+			positions = actual;
+		}
+	}
+
+	@Test
+	void testTieredNetworksCountTheirFiresWhenEvaluated() {
+		Tiering tiering = new Tiering(3);
+		List<Agent> agents = createPopulation(new Random(0), tiering);
+		PopulationEvaluator evaluator = new PopulationEvaluator();
+		List<Position> positions = agents.stream().map(agent -> Position.at(50, 50)).collect(toList());
+
+		for (int step = 0; step < 3; step++) {
+			positions = evaluator.decideNextPositions(agents, positions);
+		}
+
+		assertEquals(tiering.networksCount(), tiering.promotionsCount());
+	}
+
+	private static List<Agent> createPopulation(Random random) {
+		return createPopulation(random, BuildStrategy.DEFAULT);
+	}
+
+	private static List<Agent> createPopulation(Random random, BuildDefinition buildDefinition) {
+		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+				seed -> new NeuralNetwork.Builder(random::nextDouble, buildDefinition), random);
+		Function<Program, Agent> agentGenerator = program -> Agent.createFromProgram(networkFactory, program);
+		Program.Factory programFactory = new Program.Factory();
+		Random weightsRandom = new Random(1);
+		Function<Integer, double[]> weights = count -> weightsRandom.doubles(count, -2, 2).toArray();
+
+		List<Agent> agents = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			// Same topology, different weights, with random inputs
+			agents.add(agentGenerator.apply(programFactory.createPerceptrons(//
+					inputs -> inputs.weighted(weights.apply(5)), //
+					inputs -> inputs.weighted(weights.apply(5))//
+			)));
+			// Unique topologies
+			if (i % 3 == 0) {
+				agents.add(agentGenerator.apply(programFactory.randomMover()));
+			}
+			if (i % 4 == 0) {
+				agents.add(agentGenerator.apply(programFactory.positionMover(Position.at(i, 50))));
+			}
+		}
+		// Reads a later neuron, thus depends on the previous fire
+		agents.add(agentGenerator.apply(new Program.Builder()//
+				.createNeuronWithSumFunction()//
+				.readSignalFrom(0)//
+				.readSignalFrom(3)//
+				.createNeuronWithWeightedSumFunction(-1)//
+				.readSignalFrom(2)//
+				.setDXAt(2)//
+				.setDYAt(3)//
+				.build()));
+		return agents;
+	}
+}
@@ -0,0 +1,51 @@
+package fr.vergne.denn.agent;
+
+import static fr.vergne.denn.agent.NeuralNetworkBuildStrategyTest.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+
+class TieringTest {
+
+	@Test
+	void testTieringRejectsNonPositiveThreshold() {
+		assertThrows(IllegalArgumentException.class, () -> new Tiering(0));
+	}
+
+	@Test
+	void testTieringComputesLikePrunedBeforeAndAfterPromotion() {
+		Tiering tiering = new Tiering(2);
+		NeuralNetwork reference = BuildStrategy.PRUNED.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8,
+				4);
+		NeuralNetwork network = tiering.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8, 4);
+
+		List.of(new Inputs(0, 0), new Inputs(12, 58), new Inputs(-3.5, 7), new Inputs(12, 58), new Inputs(1, -1))
+				.forEach(inputs -> {
+					inputs.apply(reference);
+					inputs.apply(network);
+					reference.fire();
+					network.fire();
+					assertEquals(Outputs.from(reference), Outputs.from(network), inputs.toString());
+				});
+
+		assertEquals(1, tiering.networksCount());
+		assertEquals(1, tiering.promotionsCount());
+	}
+
+	@Test
+	void testTieringDoesNotPromoteColdNetworks() {
+		Tiering tiering = new Tiering(10);
+		NeuralNetwork network = tiering.buildNetwork(builtInDefinitions(new Random(0)::nextDouble), 8, 4);
+
+		for (int i = 0; i < 9; i++) {
+			network.fire();
+		}
+
+		assertEquals(0, tiering.promotionsCount());
+	}
+}
@@ -0,0 +1,110 @@
+package fr.vergne.denn.agent.adn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class MutatorTest {
+
+	private static final int BYTES_COUNT = 100_000;
+
+	static Stream<Double> probabilities() {
+		return Stream.of(0.0001, 0.001, 0.01, 0.1, 0.5);
+	}
+
+	@ParameterizedTest
+	@MethodSource("probabilities")
+	void testMutationOnBitsFlipsBitsAtGivenRate(double probabilityPerBit) {
+		byte[] bytes = new byte[BYTES_COUNT];
+		new Random(0).nextBytes(bytes);
+
+		byte[] mutatedBytes = Mutator.onBits(new Random(1), probabilityPerBit).mutate(new Chromosome(bytes)).bytes();
+
+		assertFlipsRate(bytes, mutatedBytes, (long) BYTES_COUNT * Byte.SIZE, probabilityPerBit);
+	}
+
+	@Test
+	void testMutationOnBitsFlipsEachBitPositionEqually() {
+		byte[] bytes = new byte[BYTES_COUNT];
+
+		byte[] mutatedBytes = Mutator.onBits(new Random(0), 0.01).mutate(new Chromosome(bytes)).bytes();
+
+		BitSet flips = BitSet.valueOf(mutatedBytes);
+		int[] flipsPerPosition = new int[Byte.SIZE];
+		flips.stream().forEach(index -> flipsPerPosition[index % Byte.SIZE]++);
+		double expected = 0.01 * BYTES_COUNT;
+		for (int position = 0; position < Byte.SIZE; position++) {
+			assertEquals(expected, flipsPerPosition[position], 5 * Math.sqrt(expected), "Position " + position);
+		}
+	}
+
+	@Test
+	void testMutationOnBitsWithExtremeProbabilities() {
+		byte[] bytes = new byte[100];
+		new Random(0).nextBytes(bytes);
+		Chromosome chromosome = new Chromosome(bytes.clone());
+
+		byte[] inverted = bytes.clone();
+		for (int i = 0; i < inverted.length; i++) {
+			inverted[i] = (byte) ~inverted[i];
+		}
+		assertArrayEquals(bytes, Mutator.onBits(new Random(0), 0).mutate(chromosome).bytes());
+		assertArrayEquals(inverted, Mutator.onBits(new Random(0), 1).mutate(chromosome).bytes());
+		assertArrayEquals(bytes, chromosome.bytes());
+	}
+
+	@ParameterizedTest
+	@MethodSource("probabilities")
+	void testMutationOnWeightsFlipsWeightBitsAtGivenRate(double probabilityPerBit) {
+		Program.Builder builder = new Program.Builder();
+		Random random = new Random(0);
+		int weightsCount = 0;
+		for (int i = 0; i < 1000; i++) {
+			builder.createNeuronWithWeightedSumFunction(random.nextDouble());
+			builder.createNeuronWithDotProductFunction(random.nextDouble(), random.nextDouble());
+			builder.createNeuronWithFixedSignal(random.nextDouble());
+			builder.readSignalFrom(i);
+			weightsCount += 3;
+		}
+		byte[] bytes = builder.build().serialize();
+
+		byte[] mutatedBytes = Mutator.onWeights(new Random(1), probabilityPerBit).mutate(new Chromosome(bytes))
+				.bytes();
+
+		ProgramView program = ProgramView.of(bytes);
+		ProgramView mutatedProgram = ProgramView.of(mutatedBytes);
+		byte[] weights = new byte[weightsCount * Double.BYTES];
+		byte[] mutatedWeights = new byte[weightsCount * Double.BYTES];
+		int weightIndex = 0;
+		for (int codeIndex = 0; codeIndex < program.codesCount(); codeIndex++) {
+			Operation operation = program.operation(codeIndex);
+			assertEquals(operation, mutatedProgram.operation(codeIndex));
+			if (operation == Operation.CREATE_WITH_WEIGHTED_SUM_FUNCTION
+					|| operation == Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION || operation == Operation.WEIGHT) {
+				int offset = program.offset(codeIndex) + 1;
+				System.arraycopy(bytes, offset, weights, weightIndex * Double.BYTES, Double.BYTES);
+				System.arraycopy(mutatedBytes, offset, mutatedWeights, weightIndex * Double.BYTES, Double.BYTES);
+				weightIndex++;
+			} else {
+				assertEquals(program.value(codeIndex), mutatedProgram.value(codeIndex), "Code " + codeIndex);
+			}
+		}
+		assertFlipsRate(weights, mutatedWeights, (long) weightsCount * Double.SIZE, probabilityPerBit);
+	}
+
+	private static void assertFlipsRate(byte[] bytes, byte[] mutatedBytes, long bitsCount, double probabilityPerBit) {
+		assertEquals(bytes.length, mutatedBytes.length);
+		BitSet flips = BitSet.valueOf(bytes);
+		flips.xor(BitSet.valueOf(mutatedBytes));
+
+		double expected = probabilityPerBit * bitsCount;
+		double deviation = Math.sqrt(bitsCount * probabilityPerBit * (1 - probabilityPerBit));
+		assertEquals(expected, flips.cardinality(), 5 * deviation);
+	}
+}
@@ -0,0 +1,40 @@
+package fr.vergne.denn.agent.adn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class OperationTest {
+
+	@Test
+	void testOperationsDecodeTheirSerializedByte() {
+		for (Operation operation : Operation.values()) {
+			assertEquals(operation, Operation.decode(operation.serialize()));
+		}
+	}
+
+	@Test
+	void testLegacyBytesDecodeLikeBeforeDotProducts() {
+		Operation[] legacyOperations = { //
+				Operation.CREATE_WITH_FIXED_SIGNAL, //
+				Operation.CREATE_WITH_WEIGHTED_SUM_FUNCTION, //
+				Operation.CREATE_WITH_SUM_FUNCTION, //
+				Operation.CREATE_WITH_MIN_FUNCTION, //
+				Operation.CREATE_WITH_MAX_FUNCTION, //
+				Operation.CREATE_WITH_RANDOM_SIGNAL, //
+				Operation.MOVE_TO, //
+				Operation.READ_SIGNAL_FROM, //
+				Operation.SET_DX, //
+				Operation.SET_DY//
+		};
+		for (int bits = Byte.MIN_VALUE; bits <= Byte.MAX_VALUE; bits++) {
+			if (bits == Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION.serialize()
+					|| bits == Operation.WEIGHT.serialize()) {
+				continue;// Reserved, the only bytes decoding differently
+			}
+			Operation expected = legacyOperations[Math.floorMod(bits, legacyOperations.length)];
+			assertEquals(expected, Operation.decode((byte) bits), "Byte " + bits);
+		}
+		assertEquals(Operation.SET_DY, Operation.decode((byte) -1));
+	}
+}
@@ -0,0 +1,169 @@
+package fr.vergne.denn.agent.adn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.agent.LayeredNetwork;
+import fr.vergne.denn.agent.Neural;
+import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.NeuralNetwork.Builder.BuildStrategy;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.window.ProgramInfoBuilder;
+
+class ProgramTest {
+
+	static Stream<BuildStrategy> strategies() {
+		return Stream.of(BuildStrategy.values());
+	}
+
+	@ParameterizedTest
+	@MethodSource("strategies")
+	void testDotProductComputesLikeWeightedSums(BuildStrategy strategy) {
+		Random random = new Random(0);
+		for (int trial = 0; trial < 20; trial++) {
+			double[] dXWeights = random.doubles(3, -2, 2).toArray();
+			double[] dYWeights = random.doubles(3, -2, 2).toArray();
+			NeuralNetwork reference = build(weightedSumsPerceptrons(dXWeights, dYWeights), strategy);
+			NeuralNetwork network = build(dotProductsPerceptrons(dXWeights, dYWeights), strategy);
+
+			for (int sample = 0; sample < 10; sample++) {
+				double x = random.nextDouble(-100, 100);
+				double y = random.nextDouble(-100, 100);
+				reference.setXSignal(x);
+				reference.setYSignal(y);
+				reference.fire();
+				network.setXSignal(x);
+				network.setYSignal(y);
+				network.fire();
+				assertEquals(reference.dXSignal(), network.dXSignal(), "Trial " + trial);
+				assertEquals(reference.dYSignal(), network.dYSignal(), "Trial " + trial);
+			}
+		}
+	}
+
+	@Test
+	void testDotProductShrinksProgram() {
+		double[] weights = { 1, 2, 3 };
+		Program weightedSums = weightedSumsPerceptrons(weights, weights);
+		Program dotProducts = dotProductsPerceptrons(weights, weights);
+
+		// Per output, 3 weighted sums and their sum (3 * 3 + 5) vs 3 weights read (3 + 4)
+		assertEquals(weightedSums.codes().size() - 2 * 7, dotProducts.codes().size());
+	}
+
+	@Test
+	void testDotProductSurvivesSerialization() {
+		Program program = dotProductsPerceptrons(new double[] { 1, 2, 3 }, new double[] { -1, -2, -3 });
+
+		assertEquals(program, Program.deserialize(program.serialize()));
+	}
+
+	@Test
+	void testDotProductCarriesWeightsInFollowingCodes() {
+		Program program = new Program.Builder()//
+				.createNeuronWithDotProductFunction(1, 2, 3)//
+				.createNeuronWithDotProductFunction(4)//
+				.build();
+
+		ProgramInfoBuilder infoBuilder = new ProgramInfoBuilder();
+		program.executeOn(infoBuilder);
+
+		assertEquals(String.join(System.lineSeparator(), //
+				"0 = X", //
+				"1 = Y", //
+				"2 = DOT(1.0, 2.0, 3.0)", //
+				"3 = DOT(4.0)"), infoBuilder.build());
+	}
+
+	@Test
+	void testWeightWithoutDotProductIsIgnored() {
+		Program program = new Program.Builder().createNeuronWithFixedSignal(5).build();
+		program.codes().add(0, new Code(Operation.WEIGHT, 3.0));
+
+		ProgramInfoBuilder infoBuilder = new ProgramInfoBuilder();
+		program.executeOn(infoBuilder);
+
+		assertEquals(String.join(System.lineSeparator(), //
+				"0 = X", //
+				"1 = Y", //
+				"2 = CONST(5.0)"), infoBuilder.build());
+	}
+
+	@Test
+	void testDotProductRequiresAWeight() {
+		assertThrows(IllegalArgumentException.class, () -> new Program.Builder().createNeuronWithDotProductFunction());
+	}
+
+	static Stream<byte[]> chromosomes() {
+		Random random = new Random(0);
+		Program.Factory factory = new Program.Factory();
+		Stream<byte[]> programs = Stream.of(//
+				factory.randomMover(), //
+				factory.positionMover(Position.at(3, 4)), //
+				dotProductsPerceptrons(new double[] { 1, 2, 3 }, new double[] { -1, -2, -3 }), //
+				new Program.Builder().createNeuronWithDotProductFunction(new double[20]).build()//
+		).map(Program::serialize);
+		// Arbitrary bytes, including unknown operations and incomplete codes
+		Stream<byte[]> randomBytes = Stream.generate(() -> {
+			byte[] bytes = new byte[random.nextInt(20 * Code.SIZE)];
+			random.nextBytes(bytes);
+			return bytes;
+		}).limit(20);
+		return Stream.concat(programs, randomBytes);
+	}
+
+	@ParameterizedTest
+	@MethodSource("chromosomes")
+	void testExecuteOnBytesBuildsLikeDeserializedProgram(byte[] bytes) {
+		List<String> expected = new ArrayList<>();
+		Program.deserialize(bytes).executeOn(recordingBuilder(expected));
+
+		List<String> actual = new ArrayList<>();
+		Program.executeOn(bytes, recordingBuilder(actual));
+
+		assertEquals(expected, actual);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Neural.Builder<Void> recordingBuilder(List<String> calls) {
+		return (Neural.Builder<Void>) Proxy.newProxyInstance(ProgramTest.class.getClassLoader(),
+				new Class<?>[] { Neural.Builder.class }, (proxy, method, args) -> {
+					calls.add(method.getName() + Arrays.deepToString(args));
+					return proxy;
+				});
+	}
+
+	private static Program weightedSumsPerceptrons(double[] dXWeights, double[] dYWeights) {
+		LayeredNetwork.Programmer programmer = new LayeredNetwork.Programmer();
+		LayeredNetwork.Layer inputs = programmer.layerOf().x().y().constant(1.0);
+		return programmer//
+				.setDx(programmer.sum(inputs.weighted(dXWeights)))//
+				.setDy(programmer.sum(inputs.weighted(dYWeights)))//
+				.program();
+	}
+
+	private static Program dotProductsPerceptrons(double[] dXWeights, double[] dYWeights) {
+		LayeredNetwork.Programmer programmer = new LayeredNetwork.Programmer();
+		LayeredNetwork.Layer inputs = programmer.layerOf().x().y().constant(1.0);
+		return programmer//
+				.setDx(programmer.dotProduct(inputs, dXWeights))//
+				.setDy(programmer.dotProduct(inputs, dYWeights))//
+				.program();
+	}
+
+	private static NeuralNetwork build(Program program, BuildStrategy strategy) {
+		NeuralNetwork.Builder builder = new NeuralNetwork.Builder(() -> 0.5, strategy);
+		program.executeOn(builder);
+		return builder.build();
+	}
+}
@@ -0,0 +1,119 @@
+package fr.vergne.denn.agent.adn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.utils.Position;
+
+class ProgramViewTest {
+
+	static Stream<byte[]> chromosomes() {
+		return ProgramTest.chromosomes();
+	}
+
+	@ParameterizedTest
+	@MethodSource("chromosomes")
+	void testViewReadsCodesLikeDeserializedProgram(byte[] bytes) {
+		Program program = Program.deserialize(bytes);
+		ProgramView view = ProgramView.of(bytes);
+
+		assertEquals(program.codes().size(), view.codesCount());
+		for (int codeIndex = 0; codeIndex < view.codesCount(); codeIndex++) {
+			Code code = program.codes().get(codeIndex);
+			assertEquals(code.operation(), view.operation(codeIndex), "Code " + codeIndex);
+			assertEquals(code.value(), view.value(codeIndex), "Code " + codeIndex);
+		}
+		assertEquals(program, view.toProgram());
+	}
+
+	@ParameterizedTest
+	@MethodSource("chromosomes")
+	void testVisitorVisitsCodesInOrder(byte[] bytes) {
+		ProgramView view = ProgramView.of(bytes);
+
+		List<Code> codes = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		view.accept((codeIndex, operation, value) -> {
+			indexes.add(codeIndex);
+			codes.add(new Code(operation, value));
+		});
+
+		assertEquals(Program.deserialize(bytes).codes(), codes);
+		assertEquals(Stream.iterate(0, i -> i + 1).limit(codes.size()).toList(), indexes);
+	}
+
+	@Test
+	void testViewsOfSameProgramAreEqual() {
+		byte[] bytes = new Program.Factory().positionMover(Position.at(3, 4)).serialize();
+		byte[] aliasBytes = bytes.clone();
+		aliasBytes[0] -= 10;// Decoded to the same legacy operation
+		byte[] longerBytes = Arrays.copyOf(bytes, bytes.length + Code.SIZE - 1);// Incomplete code ignored
+
+		assertEquals(ProgramView.of(bytes), ProgramView.of(aliasBytes));
+		assertEquals(ProgramView.of(bytes).hashCode(), ProgramView.of(aliasBytes).hashCode());
+		assertEquals(ProgramView.of(bytes), ProgramView.of(longerBytes));
+		assertEquals(ProgramView.of(bytes).hashCode(), ProgramView.of(longerBytes).hashCode());
+		assertNotEquals(ProgramView.of(bytes), ProgramView.of(ProgramView.of(bytes).copy().setValue(0, 5.0).bytes));
+	}
+
+	@Test
+	void testWritableViewEditsCopy() {
+		Program program = new Program.Factory().positionMover(Position.at(3, 4));
+		byte[] bytes = program.serialize();
+		ProgramView view = ProgramView.of(bytes);
+
+		Chromosome edited = view.copy()//
+				.setOperation(1, Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION)//
+				.setValue(1, 0.5)//
+				.toChromosome();
+
+		List<Code> expectedCodes = new LinkedList<>(program.codes());
+		expectedCodes.set(1, new Code(Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION, 0.5));
+		assertEquals(new Program(expectedCodes), Program.deserialize(edited.bytes()));
+		assertEquals(program, Program.deserialize(bytes));
+	}
+
+	@Test
+	void testViewRejectsMissingCode() {
+		ProgramView view = ProgramView.of(new byte[2 * Code.SIZE + 1]);
+
+		assertThrows(IndexOutOfBoundsException.class, () -> view.value(2));
+		assertThrows(IndexOutOfBoundsException.class, () -> view.operation(-1));
+	}
+
+	@ParameterizedTest
+	@MethodSource("chromosomes")
+	void testMutationOnWeightsOnlyChangesWeights(byte[] bytes) {
+		Chromosome chromosome = new Chromosome(bytes);
+		List<Code> codes = Program.deserialize(bytes).codes();
+
+		List<Code> unchanged = Program.deserialize(Mutator.onWeights(new Random(0), 0).mutate(chromosome).bytes())
+				.codes();
+		List<Code> flipped = Program.deserialize(Mutator.onWeights(new Random(0), 1).mutate(chromosome).bytes())
+				.codes();
+
+		assertEquals(codes, unchanged);
+		assertEquals(codes.size(), flipped.size());
+		for (int codeIndex = 0; codeIndex < codes.size(); codeIndex++) {
+			Code code = codes.get(codeIndex);
+			Operation operation = code.operation();
+			boolean isWeight = operation == Operation.CREATE_WITH_WEIGHTED_SUM_FUNCTION
+					|| operation == Operation.CREATE_WITH_DOT_PRODUCT_FUNCTION || operation == Operation.WEIGHT;
+			double expectedValue = isWeight
+					? Double.longBitsToDouble(~Double.doubleToRawLongBits(code.value()))
+					: code.value();
+			assertEquals(new Code(operation, expectedValue), flipped.get(codeIndex), "Code " + codeIndex);
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package fr.vergne.denn.agent.adn;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ReproducerTest {
+
+	private static final double PARENT1 = 1_000_000;
+	private static final double PARENT2 = 2_000_000;
+
+	static Stream<Arguments> sizes() {
+		return Stream.of(//
+				Arguments.of(0, 0), //
+				Arguments.of(1, 1), //
+				Arguments.of(2, 5), //
+				Arguments.of(5, 2), //
+				Arguments.of(70, 70), //
+				Arguments.of(130, 100), //
+				Arguments.of(100, 130)//
+		);
+	}
+
+	@ParameterizedTest
+	@MethodSource("sizes")
+	void testRandomCodesComeFromAlignedParents(int size1, int size2) {
+		for (long seed = 0; seed < 10; seed++) {
+			Reproducer reproducer = Reproducer.onRandomCodes(new Random(seed));
+
+			Chromosome child = reproducer.reproduce(parent(PARENT1, size1), parent(PARENT2, size2));
+
+			assertAlignedOnParents(size1, size2, child);
+		}
+	}
+
+	@Test
+	void testRandomCodesComeEquallyFromBothParents() {
+		int size = 10_000;
+		Reproducer reproducer = Reproducer.onRandomCodes(new Random(0));
+
+		ProgramView child = ProgramView.of(reproducer.reproduce(parent(PARENT1, size), parent(PARENT2, size)));
+
+		int parent1Count = 0;
+		for (int codeIndex = 0; codeIndex < size; codeIndex++) {
+			parent1Count += child.value(codeIndex) < PARENT2 ? 1 : 0;
+		}
+		assertEquals(size / 2.0, parent1Count, 5 * Math.sqrt(size / 4.0));
+	}
+
+	static Stream<Arguments> pointsCounts() {
+		return sizes().flatMap(sizes -> Stream.of(1, 2, 3, 10)
+				.map(pointsCount -> Arguments.of(sizes.get()[0], sizes.get()[1], pointsCount)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("pointsCounts")
+	void testCrossoverPointsAlternateParentsSegments(int size1, int size2, int pointsCount) {
+		for (long seed = 0; seed < 10; seed++) {
+			Reproducer reproducer = Reproducer.onCrossoverPoints(new Random(seed), pointsCount);
+
+			Chromosome child = reproducer.reproduce(parent(PARENT1, size1), parent(PARENT2, size2));
+
+			assertAlignedOnParents(size1, size2, child);
+			ProgramView view = ProgramView.of(child);
+			int codesCount = view.codesCount();
+			if (codesCount == 0) {
+				continue;
+			}
+			int shift1 = codesCount - size1;
+			int shift2 = codesCount - size2;
+			int switchesCount = 0;
+			for (int codeIndex = 1; codeIndex < codesCount; codeIndex++) {
+				// Only the codes which both parents have tell which one is used
+				if (codeIndex - 1 >= Math.max(shift1, shift2)
+						&& isFromParent1(view, codeIndex) != isFromParent1(view, codeIndex - 1)) {
+					switchesCount++;
+				}
+			}
+			if (shift1 == 0 && shift2 == 0) {
+				assertTrue(isFromParent1(view, 0));
+				assertEquals(Math.min(pointsCount, codesCount - 1), switchesCount);
+			} else {
+				assertTrue(switchesCount <= pointsCount);
+			}
+		}
+	}
+
+	@Test
+	void testOnePointAndTwoPointsCutOnceAndTwice() {
+		Chromosome parent1 = parent(PARENT1, 50);
+		Chromosome parent2 = parent(PARENT2, 50);
+
+		assertArrayEquals(Reproducer.onCrossoverPoints(new Random(0), 1).reproduce(parent1, parent2).bytes(),
+				Reproducer.onOnePoint(new Random(0)).reproduce(parent1, parent2).bytes(), "One point");
+		assertArrayEquals(Reproducer.onCrossoverPoints(new Random(0), 2).reproduce(parent1, parent2).bytes(),
+				Reproducer.onTwoPoints(new Random(0)).reproduce(parent1, parent2).bytes(), "Two points");
+	}
+
+	@Test
+	void testCrossoverRequiresAPoint() {
+		assertThrows(IllegalArgumentException.class, () -> Reproducer.onCrossoverPoints(new Random(0), 0));
+	}
+
+	private static boolean isFromParent1(ProgramView child, int codeIndex) {
+		return child.value(codeIndex) < PARENT2;
+	}
+
+	/**
+	 * Each code of the child is the code of a parent at the same position, when
+	 * the parents are aligned on their last codes.
+	 */
+	private static void assertAlignedOnParents(int size1, int size2, Chromosome child) {
+		ProgramView view = ProgramView.of(child);
+		int codesCount = Math.max(size1, size2);
+		assertEquals(codesCount * Code.SIZE, child.bytes().length);
+		for (int codeIndex = 0; codeIndex < codesCount; codeIndex++) {
+			double value = view.value(codeIndex);
+			double base = value < PARENT2 ? PARENT1 : PARENT2;
+			int parentSize = base == PARENT1 ? size1 : size2;
+			int shift = codesCount - parentSize;
+			if (codeIndex < shift) {
+				// Only the longest parent has it
+				assertEquals(size1 > size2 ? PARENT1 : PARENT2, base, "Code " + codeIndex);
+				assertEquals(base + codeIndex, value, "Code " + codeIndex);
+			} else {
+				assertEquals(base + codeIndex - shift, value, "Code " + codeIndex);
+			}
+			assertEquals(Operation.CREATE_WITH_FIXED_SIGNAL, view.operation(codeIndex), "Code " + codeIndex);
+		}
+	}
+
+	private static Chromosome parent(double base, int size) {
+		Program.Builder builder = new Program.Builder();
+		for (int i = 0; i < size; i++) {
+			builder.createNeuronWithFixedSignal(base + i);
+		}
+		return new Chromosome(builder.build().serialize());
+	}
+}
@@ -0,0 +1,67 @@
+package fr.vergne.denn.terrain;
+
+import static fr.vergne.denn.utils.CollectorsUtils.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.BlockRand;
+import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+
+class BrowsersFactoryTest {
+
+	@Test
+	void testParallelPathsDoNotDependOnThreadsCount() {
+		List<Position> reference = null;
+		for (int threadsCount : new int[] { 1, 2, 4 }) {
+			Terrain terrain = Terrain.createWithSize(10, 10);
+			NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+					seed -> new NeuralNetwork.Builder(new BlockRand(seed)), new SplittableRandom(0));
+			BrowsersFactory browsersFactory = new BrowsersFactory(networkFactory, terrain, toList());
+			Program program = new Program.Factory().randomMover();
+			ForkJoinPool pool = new ForkJoinPool(threadsCount);
+
+			List<Position> attractors = pool.submit(() -> browsersFactory.browsers(program).limit(8)//
+					.flatMap(browser -> browser.paths().limit(3)//
+							.map(path -> path.steps().limit(20).reduce((step1, step2) -> step2).get()
+									.positionAfter()))//
+					.parallel()//
+					.toList()).join();
+			pool.shutdown();
+
+			if (reference == null) {
+				reference = attractors;
+				assertTrue(new HashSet<>(attractors).size() > 1, "Random paths expected");
+			} else {
+				assertEquals(reference, attractors, threadsCount + " threads");
+			}
+		}
+	}
+
+	@Test
+	void testShuffledStartsAreReproducibleFromSeed() {
+		Terrain terrain = Terrain.createWithSize(10, 10);
+		List<List<Position>> starts = new ArrayList<>();
+		for (int trial = 0; trial < 2; trial++) {
+			NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+					seed -> new NeuralNetwork.Builder(new BlockRand(seed)), new SplittableRandom(0));
+			BrowsersFactory browsersFactory = new BrowsersFactory(networkFactory, terrain,
+					toShuffledList(new SplittableRandom(networkFactory.nextSeed())));
+			starts.add(browsersFactory.browsers(new Program.Factory().randomMover()).limit(20)//
+					.map(BrowsersFactory.Browser::startPosition)//
+					.toList());
+		}
+
+		assertEquals(starts.get(0), starts.get(1));
+		assertNotEquals(terrain.allPositions().limit(20).toList(), starts.get(0), "Shuffled positions expected");
+	}
+}
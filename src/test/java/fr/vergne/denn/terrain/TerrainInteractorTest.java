@@ -0,0 +1,123 @@
+package fr.vergne.denn.terrain;
+
+import static java.util.stream.Collectors.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.Agent;
+import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.adn.Mutator;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.agent.adn.Reproducer;
+import fr.vergne.denn.utils.Position;
+import fr.vergne.denn.window.Button;
+
+class TerrainInteractorTest {
+
+	@Test
+	void testMoveAgentsInTurnMovesLikeMoveAgents() {
+		Terrain reference = createTerrain(new Random(0));
+		Terrain inTurn = createTerrain(new Random(0));
+		Button.Action referenceAction = TerrainInteractor.moveAgents().on(reference);
+		Button.Action inTurnAction = TerrainInteractor.moveAgentsInTurn().on(inTurn);
+
+		for (int step = 0; step < 20; step++) {
+			referenceAction.execute();
+			inTurnAction.execute();
+
+			assertEquals(positions(reference), positions(inTurn), "Step " + step);
+		}
+	}
+
+	@Test
+	void testReproduceAgentsIsReproducibleFromSeed() {
+		List<List<String>> chromosomes = new ArrayList<>();
+		for (int run = 0; run < 2; run++) {
+			SplittableRandom random = new SplittableRandom(0);
+			Terrain terrain = createTerrain(new Random(0));
+			NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+					seed -> new NeuralNetwork.Builder(new SplittableRandom(seed)::nextDouble), random.split());
+			Button.Action reproduce = TerrainInteractor.reproduceAgents(networkFactory,
+					Reproducer.onRandomCodes(random.split()), Mutator.onWeights(random.split(), 0.01), 60,
+					random.split()).on(terrain);
+
+			reproduce.execute();
+
+			assertEquals(60, terrain.agentsCount());
+			chromosomes.add(terrain.allPositions()//
+					.map(terrain::getAgentAt)//
+					.flatMap(Optional::stream)//
+					.map(agent -> Arrays.toString(agent.chromosome().bytes()))//
+					.collect(toList()));
+		}
+		assertEquals(chromosomes.get(0), chromosomes.get(1));
+	}
+
+	@Test
+	void testReproduceAgentsInParallelDoesNotDependOnThreadsCount() {
+		List<List<String>> agents = new ArrayList<>();
+		for (int threadsCount : new int[] { 1, 2, 4 }) {
+			SplittableRandom random = new SplittableRandom(0);
+			Terrain terrain = createTerrain(new Random(0));
+			NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+					seed -> new NeuralNetwork.Builder(new SplittableRandom(seed)::nextDouble), random.split());
+			ForkJoinPool pool = new ForkJoinPool(threadsCount);
+			Button.Action reproduce = TerrainInteractor.reproduceAgentsInParallel(networkFactory,
+					Reproducer::onRandomCodes, childRandom -> Mutator.onWeights(childRandom, 0.01), 60,
+					random.split(), pool).on(terrain);
+
+			reproduce.execute();
+			pool.shutdown();
+
+			assertEquals(60, terrain.agentsCount());
+			// Random agents decide from the random sources of their networks
+			agents.add(terrain.allPositions()//
+					.map(terrain::getAgentAt)//
+					.flatMap(Optional::stream)//
+					.map(agent -> Arrays.toString(agent.chromosome().bytes()) + " " + IntStream.range(0, 5)//
+							.mapToObj(i -> agent.decideNextMove(5, 5))//
+							.collect(toList()))//
+					.collect(toList()));
+		}
+		assertEquals(agents.get(0), agents.get(1));
+		assertEquals(agents.get(0), agents.get(2));
+	}
+
+	private static List<Position> positions(Terrain terrain) {
+		return terrain.agents().map(terrain::getAgentPosition).collect(toList());
+	}
+
+	private static Terrain createTerrain(Random random) {
+		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+				seed -> new NeuralNetwork.Builder(random::nextDouble), random);
+		Program.Factory programFactory = new Program.Factory();
+		Terrain terrain = Terrain.createWithSize(10, 10);
+		List<Program> programs = List.of(//
+				programFactory.upLeftMover(), //
+				programFactory.downRightMover(), //
+				programFactory.randomMover(), //
+				programFactory.positionMover(Position.at(5, 5)), //
+				programFactory.centerMover(terrain)//
+		);
+		Random positionsRandom = new Random(0);
+		for (int i = 0; i < 30; i++) {
+			Agent agent = Agent.createFromProgram(networkFactory, programs.get(i % programs.size()));
+			Position position;
+			do {
+				position = Position.at(positionsRandom.nextInt(10), positionsRandom.nextInt(10));
+			} while (terrain.getAgentAt(position).isPresent());
+			terrain.placeAgent(agent, position);
+		}
+		return terrain;
+	}
+}
@@ -0,0 +1,76 @@
+package fr.vergne.denn.terrain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import fr.vergne.denn.agent.Agent;
+import fr.vergne.denn.agent.NeuralNetwork;
+import fr.vergne.denn.agent.adn.Program;
+import fr.vergne.denn.utils.Position;
+
+class TerrainTest {
+
+	@Test
+	void testEmptyCopyForSingleAgentDoesNotAllocateCells() {
+		Terrain terrain = Terrain.createWithSize(100, 100);
+		Agent agent = createAgent(new Program.Factory().nonMover());
+		terrain.createEmptyCopy().placeAgent(agent, terrain.centerPosition());// Warm up
+
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(threadId);
+		Terrain copy = terrain.createEmptyCopy();
+		copy.placeAgent(agent, terrain.centerPosition());
+		copy.moveAgent(agent, new Position.Move(1, 1).code());
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+		assertEquals(Position.at(51, 51), copy.getAgentPosition(agent));
+		assertEquals(0, terrain.agentsCount());
+		// Far below the 10000 cells of the terrain
+		assertTrue(allocated < 1000, allocated + " bytes allocated");
+	}
+
+	@Test
+	void testSecondAgentKeepsCellOfFirstOccupied() {
+		Terrain terrain = Terrain.createWithSize(10, 10);
+		Agent agent1 = createAgent(new Program.Factory().nonMover());
+		Agent agent2 = createAgent(new Program.Factory().nonMover());
+		terrain.placeAgent(agent1, Position.at(1, 1));
+		terrain.placeAgent(agent2, Position.at(2, 1));
+
+		assertEquals(Optional.of(agent1), terrain.getAgentAt(Position.at(1, 1)));
+		assertEquals(Optional.of(agent2), terrain.getAgentAt(Position.at(2, 1)));
+		assertFalse(terrain.moveAgent(agent2, new Position.Move(-1, 0).code()));
+		assertThrows(IllegalArgumentException.class, () -> terrain.placeAgent(agent2, Position.at(1, 1)));
+	}
+
+	@Test
+	void testLoneAgentCanBeReplacedAndRemoved() {
+		Terrain terrain = Terrain.createWithSize(10, 10);
+		Agent agent1 = createAgent(new Program.Factory().nonMover());
+		Agent agent2 = createAgent(new Program.Factory().nonMover());
+		terrain.placeAgent(agent1, Position.at(1, 1));
+
+		assertEquals(Optional.of(agent1), terrain.replaceAgent(agent2, Position.at(1, 1)));
+		assertEquals(Optional.of(agent2), terrain.getAgentAt(Position.at(1, 1)));
+		assertEquals(1, terrain.agentsCount());
+
+		terrain.removeAgent(agent2);
+		assertEquals(Optional.empty(), terrain.getAgentAt(Position.at(1, 1)));
+		terrain.placeAgent(agent1, Position.at(1, 1));
+		assertEquals(Optional.of(agent1), terrain.getAgentAt(Position.at(1, 1)));
+	}
+
+	private static Agent createAgent(Program program) {
+		Random random = new Random(0);
+		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(
+				seed -> new NeuralNetwork.Builder(random::nextDouble), random);
+		return Agent.createFromProgram(networkFactory, program);
+	}
+}
@@ -0,0 +1,38 @@
+package fr.vergne.denn.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import fr.vergne.denn.utils.Position.Move;
+
+class PositionMoveTest {
+
+	static Stream<Move> unitMoves() {
+		return Stream.of(-1, 0, 1).flatMap(dX -> Stream.of(-1, 0, 1).map(dY -> new Move(dX, dY)));
+	}
+
+	@ParameterizedTest
+	@MethodSource("unitMoves")
+	void testUnitMoveCodeDecodesToSameMove(Move move) {
+		byte code = move.code();
+
+		assertEquals(move.dX(), Move.dX(code));
+		assertEquals(move.dY(), Move.dY(code));
+		assertEquals(move, Move.fromCode(code));
+	}
+
+	@Test
+	void testUnitMovesHaveDistinctCodes() {
+		assertEquals(9, unitMoves().map(Move::code).distinct().count());
+	}
+
+	@Test
+	void testNonUnitMoveHasNoCode() {
+		assertThrows(IllegalArgumentException.class, () -> new Move(2, 0).code());
+	}
+}
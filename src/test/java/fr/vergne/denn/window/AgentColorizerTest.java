@@ -12,6 +12,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 import java.util.stream.IntStream;
@@ -120,7 +121,7 @@ class AgentColorizerTest {
 
 	private NeuralNetwork.Factory createNetworkFactory() {
 		Random random = new Random(0);
-		Supplier<Builder<NeuralNetwork>> generator = () -> new NeuralNetwork.Builder(random::nextDouble);
+		LongFunction<Builder<NeuralNetwork>> generator = seed -> new NeuralNetwork.Builder(new Random(seed)::nextDouble);
 		NeuralNetwork.Factory networkFactory = new NeuralNetwork.Factory(generator, random);
 		return networkFactory;
 	}